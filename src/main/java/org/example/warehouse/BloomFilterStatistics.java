@@ -0,0 +1,28 @@
+package org.example.warehouse;
+
+/**
+ * How the Bloom filter in front of {@link Warehouse#getProductById(java.util.UUID)}
+ * is sized and how well it works.
+ * <p>
+ * Only lookups by {@link Warehouse#getProductById(java.util.UUID)} and
+ * {@link Warehouse#updateProductPrice(java.util.UUID, java.math.BigDecimal)} are
+ * counted, not the duplicate checks of adding a product.
+ *
+ * @param bytes             heap bytes used by the filter
+ * @param capacity          products the filter is sized for before it's rebuilt larger
+ * @param hashFunctions     bits set per product
+ * @param falsePositiveRate the configured false positive rate
+ * @param rejected          lookups of missing ids the filter answered on its own
+ * @param falsePositives    lookups of missing ids the filter let through to the index
+ */
+public record BloomFilterStatistics(long bytes, int capacity, int hashFunctions, double falsePositiveRate,
+                                    long rejected, long falsePositives) {
+
+    /**
+     * The share of lookups of missing ids that the filter let through.
+     */
+    public double observedFalsePositiveRate() {
+        long missing = rejected + falsePositives;
+        return missing == 0 ? 0 : (double) falsePositives / missing;
+    }
+}
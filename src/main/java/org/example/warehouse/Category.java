@@ -0,0 +1,203 @@
+package org.example.warehouse;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A product category. Categories are interned: {@link #of(String)} returns the same
+ * instance for every call with the same (capitalized) name, so categories can be
+ * compared by identity.
+ * <p>
+ * Categories form a hierarchy through their names: {@code "Dairy/Cheese/Hard"} is a
+ * subcategory of {@code "Dairy/Cheese"}, which is a subcategory of {@code "Dairy"}.
+ * Every category keeps its ancestors by depth, so {@link #isWithin(Category)} takes
+ * constant time.
+ * <p>
+ * By default every category ever created stays interned. Setting the system property
+ * {@value #WEAK_INTERNING_PROPERTY} to {@code true} interns categories weakly
+ * instead: a category nothing refers to can then be garbage collected, and a later
+ * call to {@code of} with its name creates a new instance with the same name. The
+ * ordinal of a collected category is given to the next category created, see
+ * {@link #ordinal()}.
+ */
+public final class Category {
+
+    public static final char SEPARATOR = '/';
+
+    /**
+     * System property that makes categories interned weakly when {@code true}.
+     * Ordinals of collected categories are then reused, see {@link #ordinal()}.
+     */
+    public static final String WEAK_INTERNING_PROPERTY = "org.example.warehouse.category.weakInterning";
+
+    public static final String MBEAN_NAME = "org.example.warehouse:type=CategoryIntern";
+
+    private static final CategoryTable TABLE = new CategoryTable(Boolean.getBoolean(WEAK_INTERNING_PROPERTY));
+    private static volatile FrozenCategoryTable frozen = new FrozenCategoryTable(List.of());
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new CategoryIntern(), new ObjectName(MBEAN_NAME));
+        } catch (JMException e) {
+            // Already registered by another class loader; statistics are still available from internStatistics
+        }
+    }
+
+    private final String name;
+    private final int ordinal;
+    private final Category[] path;
+    final int hash;
+
+    Category(String name, int ordinal, Category parent) {
+        this.name = name;
+        this.ordinal = ordinal;
+        this.hash = name.hashCode();
+        if (parent == null) {
+            this.path = new Category[]{this};
+        } else {
+            this.path = Arrays.copyOf(parent.path, parent.path.length + 1);
+            this.path[parent.path.length] = this;
+        }
+    }
+
+    /**
+     * Returns the category with the given name, creating it and its parent
+     * categories on first use. The first letter of the name, and of each path segment
+     * after a {@value #SEPARATOR}, is always upper case.
+     * <p>
+     * Looking up an existing category is wait-free and does not allocate, and neither
+     * does the lookup through any of the other {@code of} overloads.
+     */
+    public static Category of(String name) {
+        return of((CharSequence) name);
+    }
+
+    /**
+     * Same as {@link #of(String)}, for names that aren't a String, like a slice of a
+     * line being parsed. The name is only read during the call.
+     */
+    public static Category of(CharSequence name) {
+        if (name == null)
+            throw new IllegalArgumentException("Category name can't be null");
+        int hash = CategoryTable.hash(name);
+        Category category = frozen.get(name, hash);
+        if (category != null) {
+            TABLE.recordHit(true);
+            return category;
+        }
+        category = TABLE.get(name, hash);
+        if (category != null) {
+            TABLE.recordHit(false);
+            return category;
+        }
+        return TABLE.intern(name);
+    }
+
+    /**
+     * Same as {@link #of(String)}, for a name encoded as UTF-8 in
+     * {@code utf8[offset, offset + length)}.
+     */
+    public static Category of(byte[] utf8, int offset, int length) {
+        if (utf8 == null)
+            throw new IllegalArgumentException("Category name can't be null");
+        Objects.checkFromIndexSize(offset, length, utf8.length);
+        return of(Utf8Name.decode(utf8, offset, length));
+    }
+
+    /**
+     * Same as {@link #of(String)}, for a name encoded as UTF-8 at the absolute
+     * positions {@code [offset, offset + length)} of the buffer. The buffer's
+     * position and limit are not changed.
+     */
+    public static Category of(ByteBuffer utf8, int offset, int length) {
+        if (utf8 == null)
+            throw new IllegalArgumentException("Category name can't be null");
+        Objects.checkFromIndexSize(offset, length, utf8.limit());
+        return of(Utf8Name.decode(utf8, offset, length));
+    }
+
+    /**
+     * Compiles the categories that exist now into a perfect hash table that
+     * {@code of} checks first. Use it once the set of categories has settled, for
+     * example after loading a catalog; categories created later are still found,
+     * through the slower dynamic table, and are included by the next freeze.
+     * <p>
+     * Frozen categories are never garbage collected, even with weak interning.
+     */
+    public static void freeze() {
+        frozen = new FrozenCategoryTable(TABLE.categories());
+    }
+
+    /**
+     * The number of categories currently interned. With weak interning this doesn't
+     * count categories that have been garbage collected.
+     */
+    public static int internedCount() {
+        return TABLE.size();
+    }
+
+    /**
+     * Counters for lookups and the intern table since the class was loaded. Also
+     * available through JMX as {@value #MBEAN_NAME}.
+     */
+    public static CategoryInternStatistics internStatistics() {
+        return TABLE.statistics(frozen.size());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The category this is a subcategory of, or empty for a top level category.
+     */
+    public Optional<Category> getParent() {
+        return path.length > 1 ? Optional.of(path[path.length - 2]) : Optional.empty();
+    }
+
+    /**
+     * The number of ancestors this category has; 0 for a top level category.
+     */
+    public int depth() {
+        return path.length - 1;
+    }
+
+    /**
+     * The ancestor at the given depth, or this category for its own depth.
+     */
+    Category ancestor(int depth) {
+        return path[depth];
+    }
+
+    /**
+     * Returns true if this is the given category or one of its subcategories.
+     */
+    public boolean isWithin(Category category) {
+        int depth = category.depth();
+        return depth < path.length && path[depth] == category;
+    }
+
+    /**
+     * A dense index assigned when the category is created, starting at 0. Useful for
+     * keeping per-category data in plain arrays instead of maps.
+     * <p>
+     * With {@value #WEAK_INTERNING_PROPERTY} set, the ordinal of a category that was
+     * garbage collected is reused by a later category, which may have another name.
+     * Data kept by ordinal must then hold on to its category, as {@link Warehouse}
+     * does, or check that the category at an ordinal is the one it expects.
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
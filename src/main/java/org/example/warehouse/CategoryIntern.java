@@ -0,0 +1,52 @@
+package org.example.warehouse;
+
+/**
+ * The {@link CategoryInternMXBean} registered by {@link Category}.
+ */
+final class CategoryIntern implements CategoryInternMXBean {
+
+    @Override
+    public long getHits() {
+        return Category.internStatistics().hits();
+    }
+
+    @Override
+    public long getFrozenHits() {
+        return Category.internStatistics().frozenHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return Category.internStatistics().misses();
+    }
+
+    @Override
+    public long getCapitalizations() {
+        return Category.internStatistics().capitalizations();
+    }
+
+    @Override
+    public int getSize() {
+        return Category.internStatistics().size();
+    }
+
+    @Override
+    public int getFrozenSize() {
+        return Category.internStatistics().frozenSize();
+    }
+
+    @Override
+    public long getResizes() {
+        return Category.internStatistics().resizes();
+    }
+
+    @Override
+    public long getContentions() {
+        return Category.internStatistics().contentions();
+    }
+
+    @Override
+    public long getRetries() {
+        return Category.internStatistics().retries();
+    }
+}
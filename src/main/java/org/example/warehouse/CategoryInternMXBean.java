@@ -0,0 +1,26 @@
+package org.example.warehouse;
+
+/**
+ * Exposes {@link CategoryInternStatistics} through JMX, registered as
+ * {@value Category#MBEAN_NAME}.
+ */
+public interface CategoryInternMXBean {
+
+    long getHits();
+
+    long getFrozenHits();
+
+    long getMisses();
+
+    long getCapitalizations();
+
+    int getSize();
+
+    int getFrozenSize();
+
+    long getResizes();
+
+    long getContentions();
+
+    long getRetries();
+}
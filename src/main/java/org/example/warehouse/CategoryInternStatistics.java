@@ -0,0 +1,19 @@
+package org.example.warehouse;
+
+/**
+ * Counters for {@link Category#of(String)} and the table categories are interned in.
+ *
+ * @param hits            lookups that found an existing category in the dynamic table
+ * @param frozenHits      lookups that found an existing category in the frozen table
+ * @param misses          categories created, including parents created for a path
+ * @param capitalizations categories created from a name that had to be capitalized
+ * @param size            categories currently interned
+ * @param frozenSize      categories in the frozen table, see {@link Category#freeze()}
+ * @param resizes         times the dynamic table was rebuilt at a new size
+ * @param contentions     times creating a category had to wait for another thread
+ * @param retries         lookups that missed but found the category once they got to
+ *                        create it, because another thread created it first
+ */
+public record CategoryInternStatistics(long hits, long frozenHits, long misses, long capitalizations,
+                                       int size, int frozenSize, long resizes, long contentions, long retries) {
+}
@@ -0,0 +1,9 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+
+/**
+ * Price statistics for the products in a category and its subcategories.
+ */
+public record CategoryStatistics(int count, BigDecimal total, BigDecimal min, BigDecimal max, BigDecimal mean) {
+}
@@ -0,0 +1,295 @@
+package org.example.warehouse;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Intern table behind {@link Category#of(String)}.
+ * <p>
+ * An open addressing table with linear probing. Slots are never cleared, so a reader
+ * can probe a published array without locking: the probe ends at the matching
+ * category or at the first empty slot, and the load factor is kept at or below one
+ * half so there always is one. Keys are matched against the raw, not yet capitalized
+ * name, which means a hit allocates nothing.
+ * <p>
+ * Inserts are serialized by a lock on the table and resizes publish a new array; readers
+ * still probing the old array see every category that existed before the resize
+ * and fall back to {@link #intern(CharSequence)} on a miss.
+ * <p>
+ * A weak table holds its categories through {@link WeakEntry weak references}, so a
+ * category nothing else refers to can be garbage collected. A cleared entry stays in
+ * its slot as a tombstone that readers probe past, and is either reused by a later
+ * insert or dropped on the next resize. The ordinal of a collected category is
+ * reused by the next category created, which keeps ordinals dense.
+ */
+final class CategoryTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean weak;
+    private final ReferenceQueue<Category> collected = new ReferenceQueue<>();
+    private final IntList freeOrdinals = new IntList();
+    private volatile AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder frozenHits = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private int size;
+    private int occupied;
+    private int nextOrdinal;
+    private long misses;
+    private long capitalizations;
+    private long resizes;
+    private long retries;
+
+    CategoryTable(boolean weak) {
+        this.weak = weak;
+    }
+
+    /**
+     * Returns the interned category for the name, or null if it doesn't exist yet.
+     */
+    Category get(CharSequence name) {
+        return get(name, hash(name));
+    }
+
+    /**
+     * Same as {@link #get(CharSequence)}, with the hash already computed by
+     * {@link #hash(CharSequence)}.
+     */
+    Category get(CharSequence name, int hash) {
+        AtomicReferenceArray<Object> table = slots;
+        int mask = table.length() - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Object slot = table.getAcquire(i);
+            if (slot == null)
+                return null;
+            if (hashOf(slot) == hash) {
+                Category category = categoryOf(slot);
+                if (category != null && matches(category.getName(), name))
+                    return category;
+            }
+        }
+    }
+
+    /**
+     * Returns the interned category for the name, creating it if it doesn't exist.
+     */
+    Category intern(CharSequence name) {
+        lock();
+        try {
+            expungeCollected();
+            Category existing = get(name);
+            if (existing != null) {
+                retries++;
+                return existing;
+            }
+            return create(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Category create(CharSequence name) {
+        String capitalized = capitalize(name);
+        if (!capitalized.contentEquals(name))
+            capitalizations++;
+        int separator = capitalized.lastIndexOf(Category.SEPARATOR);
+        if (separator == 0 || separator == capitalized.length() - 1 || capitalized.contains("//"))
+            throw new IllegalArgumentException("Category name can't have empty path segments");
+        Category parent = null;
+        if (separator > 0) {
+            String parentName = capitalized.substring(0, separator);
+            parent = get(parentName);
+            if (parent == null)
+                parent = create(parentName);
+        }
+        Category category = new Category(capitalized, nextOrdinal(), parent);
+        if ((occupied + 1) * 2 > slots.length())
+            resize();
+        if (insert(slots, weak ? new WeakEntry(category, collected) : category))
+            occupied++;
+        size++;
+        misses++;
+        return category;
+    }
+
+    /**
+     * The number of categories in the table. For a weak table this only counts
+     * categories that haven't been collected yet.
+     */
+    int size() {
+        lock();
+        try {
+            expungeCollected();
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The categories in the table that haven't been collected.
+     */
+    List<Category> categories() {
+        lock();
+        try {
+            List<Category> categories = new ArrayList<>(size);
+            AtomicReferenceArray<Object> table = slots;
+            for (int i = 0; i < table.length(); i++) {
+                Object slot = table.getPlain(i);
+                Category category = slot == null ? null : categoryOf(slot);
+                if (category != null)
+                    categories.add(category);
+            }
+            return categories;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a lookup that found an existing category without going through
+     * {@link #intern(CharSequence)}.
+     */
+    void recordHit(boolean frozen) {
+        (frozen ? frozenHits : hits).increment();
+    }
+
+    CategoryInternStatistics statistics(int frozenSize) {
+        lock();
+        try {
+            expungeCollected();
+            return new CategoryInternStatistics(hits.sum() + retries, frozenHits.sum(), misses, capitalizations,
+                    size, frozenSize, resizes, contentions.sum(), retries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void lock() {
+        if (!lock.tryLock()) {
+            contentions.increment();
+            lock.lock();
+        }
+    }
+
+    private int nextOrdinal() {
+        return freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.removeLast();
+    }
+
+    private void expungeCollected() {
+        if (!weak)
+            return;
+        for (Object entry; (entry = collected.poll()) != null; ) {
+            freeOrdinals.add(((WeakEntry) entry).ordinal);
+            size--;
+        }
+    }
+
+    private void resize() {
+        AtomicReferenceArray<Object> old = slots;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < (size + 1) * 4)
+            capacity *= 2;
+        AtomicReferenceArray<Object> table = new AtomicReferenceArray<>(capacity);
+        occupied = 0;
+        for (int i = 0; i < old.length(); i++) {
+            Object slot = old.getPlain(i);
+            if (slot != null && categoryOf(slot) != null && insert(table, slot))
+                occupied++;
+        }
+        slots = table;
+        resizes++;
+    }
+
+    /**
+     * Puts the entry in the first empty or tombstone slot of its probe sequence.
+     *
+     * @return true if an empty slot was used, false if a tombstone was reused
+     */
+    private static boolean insert(AtomicReferenceArray<Object> table, Object entry) {
+        int mask = table.length() - 1;
+        int i = spread(hashOf(entry)) & mask;
+        Object slot;
+        while ((slot = table.getPlain(i)) != null && categoryOf(slot) != null)
+            i = (i + 1) & mask;
+        table.setRelease(i, entry);
+        return slot == null;
+    }
+
+    private static int hashOf(Object slot) {
+        return slot instanceof Category category ? category.hash : ((WeakEntry) slot).hash;
+    }
+
+    private static Category categoryOf(Object slot) {
+        return slot instanceof Category category ? category : ((WeakEntry) slot).get();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The character at index in the capitalized form of name, where each path
+     * segment starts with an upper case letter.
+     */
+    private static char charAt(CharSequence name, int index) {
+        char c = name.charAt(index);
+        return index == 0 || name.charAt(index - 1) == Category.SEPARATOR ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * Same value as {@code capitalize(name).hashCode()}, computed without allocating.
+     */
+    static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0, length = name.length(); i < length; i++)
+            h = 31 * h + charAt(name, i);
+        return h;
+    }
+
+    static boolean matches(String interned, CharSequence name) {
+        int length = interned.length();
+        if (length != name.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (interned.charAt(i) != charAt(name, i))
+                return false;
+        }
+        return true;
+    }
+
+    static String capitalize(CharSequence name) {
+        if (isCapitalized(name))
+            return name.toString();
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++)
+            sb.append(charAt(name, i));
+        return sb.toString();
+    }
+
+    private static boolean isCapitalized(CharSequence name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (charAt(name, i) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static final class WeakEntry extends WeakReference<Category> {
+        final int hash;
+        final int ordinal;
+
+        WeakEntry(Category category, ReferenceQueue<Category> queue) {
+            super(category, queue);
+            this.hash = category.hash;
+            this.ordinal = category.ordinal();
+        }
+    }
+}
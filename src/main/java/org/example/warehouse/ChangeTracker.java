@@ -0,0 +1,47 @@
+package org.example.warehouse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The slots of products that were changed, in the order they were first changed.
+ * <p>
+ * A bitset over slots, one bit per product, decides whether a slot was already
+ * changed with a single atomic or, and the slots whose bit was set are appended to
+ * a list. Listing the changes reads only that list, so it costs as much as there are
+ * changes however many products there are.
+ * <p>
+ * Marking is for one thread at a time, the one making the change.
+ */
+final class ChangeTracker {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile long[] words = new long[1];
+    private final IntList slots = new IntList();
+
+    /**
+     * Marks the slot as changed.
+     *
+     * @return true if it wasn't marked before
+     */
+    boolean mark(int slot) {
+        int word = slot >>> 6;
+        long[] words = this.words;
+        if (word >= words.length)
+            this.words = words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        long bit = 1L << slot;
+        if (((long) WORDS.getAndBitwiseOr(words, word, bit) & bit) != 0)
+            return false;
+        slots.add(slot);
+        return true;
+    }
+
+    /**
+     * The marked slots, in the order they were first marked.
+     */
+    IntList slots() {
+        return slots;
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.warehouse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable lookup table over a fixed set of categories, built by
+ * {@link Category#freeze()}.
+ * <p>
+ * Uses a minimal perfect hash in the hash-and-displace style: a name's hash picks a
+ * bucket, and the bucket's displacement picks the one slot that can hold the name,
+ * so a lookup is two array loads and one compare with no probing. Buckets are
+ * placed largest first, trying displacements until every name in the bucket lands
+ * in a free slot; buckets with a single name are placed directly in a free slot
+ * and store its index instead, encoded as a negative displacement.
+ * <p>
+ * Names are hashed by their {@code String} hash, so of several categories sharing a
+ * hash only the first is included. Lookups for the others, and for names that
+ * weren't frozen, miss and fall back to the dynamic table.
+ */
+final class FrozenCategoryTable {
+
+    private static final int NAMES_PER_BUCKET = 4;
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final int[] displacements;
+    private final int[] hashes;
+    private final Category[] categories;
+
+    FrozenCategoryTable(List<Category> frozen) {
+        List<Category> unique = uniqueHashes(frozen);
+        int size = unique.size();
+        displacements = new int[Math.max(1, size / NAMES_PER_BUCKET)];
+        hashes = new int[size];
+        categories = new Category[size];
+
+        List<List<Category>> buckets = new ArrayList<>(displacements.length);
+        for (int i = 0; i < displacements.length; i++)
+            buckets.add(new ArrayList<>());
+        for (Category category : unique)
+            buckets.get(bucket(category.hash, displacements.length)).add(category);
+
+        Integer[] order = new Integer[displacements.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt((Integer b) -> buckets.get(b).size()).reversed());
+
+        int freeSlot = 0;
+        for (int b : order) {
+            List<Category> bucket = buckets.get(b);
+            if (bucket.size() > 1) {
+                displacements[b] = place(bucket);
+            } else if (bucket.size() == 1) {
+                while (categories[freeSlot] != null)
+                    freeSlot++;
+                categories[freeSlot] = bucket.get(0);
+                hashes[freeSlot] = bucket.get(0).hash;
+                displacements[b] = -freeSlot - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the frozen category for the name, or null if it isn't frozen.
+     *
+     * @param hash the hash of the name, from {@link CategoryTable#hash(CharSequence)}
+     */
+    Category get(CharSequence name, int hash) {
+        if (categories.length == 0)
+            return null;
+        int displacement = displacements[bucket(hash, displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1 : slot(hash, displacement, categories.length);
+        if (hashes[slot] != hash)
+            return null;
+        Category category = categories[slot];
+        return category != null && CategoryTable.matches(category.getName(), name) ? category : null;
+    }
+
+    int size() {
+        return categories.length;
+    }
+
+    /**
+     * Finds a displacement that puts every category of the bucket in a free slot and
+     * puts them there. Categories of a bucket that can't be placed are left out.
+     */
+    private int place(List<Category> bucket) {
+        int[] slots = new int[bucket.size()];
+        for (int displacement = 0; displacement < MAX_DISPLACEMENT; displacement++) {
+            if (fits(bucket, displacement, slots)) {
+                for (int i = 0; i < slots.length; i++) {
+                    categories[slots[i]] = bucket.get(i);
+                    hashes[slots[i]] = bucket.get(i).hash;
+                }
+                return displacement;
+            }
+        }
+        return 0;
+    }
+
+    private boolean fits(List<Category> bucket, int displacement, int[] slots) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = slot(bucket.get(i).hash, displacement, categories.length);
+            if (categories[slots[i]] != null)
+                return false;
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slots[i])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Category> uniqueHashes(List<Category> categories) {
+        List<Category> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparingInt((Category c) -> c.hash).thenComparingInt(Category::ordinal));
+        List<Category> unique = new ArrayList<>(sorted.size());
+        for (Category category : sorted) {
+            if (unique.isEmpty() || unique.get(unique.size() - 1).hash != category.hash)
+                unique.add(category);
+        }
+        return unique;
+    }
+
+    private static int bucket(int hash, int buckets) {
+        return reduce(mix(hash), buckets);
+    }
+
+    private static int slot(int hash, int displacement, int slots) {
+        return reduce(mix(hash ^ (0x9E3779B9 * (displacement + 1))), slots);
+    }
+
+    /**
+     * Maps a uniformly distributed int to [0, n) without a division.
+     */
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xFFFFFFFFL) * n) >>> 32);
+    }
+
+    /**
+     * The MurmurHash3 finalizer.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.warehouse;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A {@link ProductStore} on the Java heap, keeping products as parallel columns of
+ * primitives.
+ * <p>
+ * An id is kept as its two {@code long} halves and a category as its ordinal, so
+ * scanning categories reads a contiguous array and a product costs 24 bytes instead
+ * of a record, a {@code UUID} and a {@code String}.
+ * <p>
+ * The columns are volatile and only replaced by grown copies, so a reader that learned
+ * of a slot through a happens-before edge can read it while products are added.
+ */
+final class HeapProductStore implements ProductStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile long[] idHighs = new long[INITIAL_CAPACITY];
+    private volatile long[] idLows = new long[INITIAL_CAPACITY];
+    private volatile int[] nameRefs = new int[INITIAL_CAPACITY];
+    private volatile int[] categoryOrdinals = new int[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public int add(UUID id, int nameRef, int categoryOrdinal) {
+        if (size == idHighs.length)
+            grow();
+        idHighs[size] = id.getMostSignificantBits();
+        idLows[size] = id.getLeastSignificantBits();
+        nameRefs[size] = nameRef;
+        categoryOrdinals[size] = categoryOrdinal;
+        return size++;
+    }
+
+    @Override
+    public long idHigh(int slot) {
+        return idHighs[slot];
+    }
+
+    @Override
+    public long idLow(int slot) {
+        return idLows[slot];
+    }
+
+    @Override
+    public int nameRef(int slot) {
+        return nameRefs[slot];
+    }
+
+    @Override
+    public int categoryOrdinal(int slot) {
+        return categoryOrdinals[slot];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = size * 2;
+        idHighs = Arrays.copyOf(idHighs, capacity);
+        idLows = Arrays.copyOf(idLows, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.warehouse;
+
+/**
+ * A blocked Bloom filter over product ids, checked before the {@link UuidIndex} so
+ * most lookups of ids that don't exist end after one cache line.
+ * <p>
+ * Bits are grouped in blocks of {@value #BLOCK_BITS}, one cache line, and all the
+ * bits of an id are in the block its hash picks. That costs a bit more memory than a
+ * plain Bloom filter for the same false positive rate, which the bits per id make
+ * up for, but a lookup touches a single line.
+ * <p>
+ * The filter is sized for a number of ids; once that many are added it has to be
+ * replaced by a larger one, see {@link #isFull()}.
+ * <p>
+ * Bits are only ever set, so one thread may add while others check: a reader that
+ * learned of an id through a happens-before edge finds the bits it set.
+ */
+final class IdFilter {
+
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+    /**
+     * Extra bits a blocked filter needs to keep the false positive rate of a plain one.
+     */
+    private static final double BLOCK_OVERHEAD = 1.2;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final int capacity;
+    private int size;
+
+    /**
+     * A filter for capacity ids with about the given false positive rate.
+     */
+    IdFilter(int capacity, double falsePositiveRate) {
+        double bitsPerId = BLOCK_OVERHEAD * -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.blocks = (int) Math.max(1, Math.ceil(capacity * bitsPerId / BLOCK_BITS));
+        this.words = new long[blocks * BLOCK_WORDS];
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerId / BLOCK_OVERHEAD * Math.log(2))));
+        this.capacity = capacity;
+    }
+
+    void add(long mostSignificantBits, long leastSignificantBits) {
+        long hash = hash(mostSignificantBits, leastSignificantBits);
+        int base = block(hash) * BLOCK_WORDS;
+        int h = (int) hash;
+        int step = (int) mix(hash) | 1;
+        for (int i = 0; i < hashes; i++, h += step)
+            words[base + (h >>> 29)] |= 1L << (h >>> 23);
+        size++;
+    }
+
+    /**
+     * Returns false if the id was never added, true if it may have been.
+     */
+    boolean mightContain(long mostSignificantBits, long leastSignificantBits) {
+        long hash = hash(mostSignificantBits, leastSignificantBits);
+        int base = block(hash) * BLOCK_WORDS;
+        int h = (int) hash;
+        int step = (int) mix(hash) | 1;
+        for (int i = 0; i < hashes; i++, h += step) {
+            if ((words[base + (h >>> 29)] & 1L << (h >>> 23)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    long bytes() {
+        return 8L * words.length;
+    }
+
+    private int block(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32);
+    }
+
+    private static long hash(long mostSignificantBits, long leastSignificantBits) {
+        return mix(mostSignificantBits * 0x9E3779B97F4A7C15L ^ leastSignificantBits);
+    }
+
+    /**
+     * The MurmurHash3 64 bit finalizer.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
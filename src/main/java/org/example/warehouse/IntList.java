@@ -0,0 +1,65 @@
+package org.example.warehouse;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints.
+ * <p>
+ * One thread may append while others read: the size is written after the value it
+ * covers and read before the array, so a reader sees every value up to the size it
+ * read.
+ */
+final class IntList {
+
+    private volatile int[] values;
+    private volatile int size;
+
+    IntList() {
+        this(8);
+    }
+
+    IntList(int capacity) {
+        values = new int[capacity];
+    }
+
+    void add(int value) {
+        int[] values = this.values;
+        if (size == values.length)
+            this.values = values = Arrays.copyOf(values, Math.max(8, size * 2));
+        values[size] = value;
+        size++;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int removeLast() {
+        return values[--size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The number of values less than value, for a list kept in ascending order.
+     */
+    int countBelow(int value) {
+        int low = 0;
+        int high = size;
+        int[] values = this.values;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.warehouse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Product names, each distinct name stored once and referred to by an int.
+ * <p>
+ * Names are packed into shared byte arenas of {@value #CHUNK_SIZE} bytes, one byte
+ * per character if the name is Latin-1 and two otherwise, behind a varint header
+ * holding the length and which of the two it is. Like a {@code String}'s own
+ * storage this keeps any name as it was given, unpaired surrogates included. A
+ * name is only decoded to a {@code String} when it's read. Finding the reference
+ * of an existing name compares the stored characters with the name directly.
+ * <p>
+ * The arenas are heap or direct byte buffers, so a dictionary for
+ * {@link WarehouseOptions.Storage#OFF_HEAP} keeps the text of its names outside the
+ * heap, which then only holds a few ints per distinct name.
+ * <p>
+ * Adding is for one thread at a time. The chunks and locations are volatile and only
+ * replaced by grown copies, so {@link #get(int)} can be called from other threads
+ * for any reference they learned of through a happens-before edge.
+ */
+final class NameDictionary {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int LATIN1 = 0;
+    private static final int UTF16 = 1;
+
+    /**
+     * Estimated heap cost of a product referring to its own String, apart from the
+     * String's array: the reference and the String object.
+     */
+    private static final int STRING_OVERHEAD = 4 + 24;
+    private static final int ARRAY_HEADER = 16;
+    /**
+     * Heap cost per distinct name for the entry arrays and the hash table.
+     */
+    private static final int ENTRY_OVERHEAD = 8 + 4 + 2 * 4;
+
+    private final boolean direct;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int chunkPosition = CHUNK_SIZE;
+    private volatile long[] locations = new long[16];
+    private int[] hashes = new int[16];
+    private int[] table = new int[32];
+    private int size;
+    private long usedBytes;
+    private long stringBytes;
+
+    NameDictionary() {
+        this(false);
+    }
+
+    /**
+     * @param direct whether to keep the names in direct memory outside the heap
+     */
+    NameDictionary(boolean direct) {
+        this.direct = direct;
+    }
+
+    /**
+     * Returns the reference of the name, adding it if it isn't in the dictionary.
+     */
+    int add(String name) {
+        stringBytes += STRING_OVERHEAD + align(ARRAY_HEADER + name.length() * (isLatin1(name) ? 1 : 2));
+        int hash = name.hashCode();
+        int mask = table.length - 1;
+        int i = spread(hash) & mask;
+        for (int entry; (entry = table[i]) != 0; i = (i + 1) & mask) {
+            if (hashes[entry - 1] == hash && matches(entry - 1, name))
+                return entry - 1;
+        }
+        int ref = append(name, hash);
+        table[i] = ref + 1;
+        if (size * 2 > table.length)
+            rehash();
+        return ref;
+    }
+
+    String get(int ref) {
+        long location = locations[ref];
+        ByteBuffer chunk = chunks[(int) (location >>> 32)];
+        int header = readHeader(chunk, (int) location);
+        int position = (int) location + varintSize(header);
+        if ((header & 1) == LATIN1) {
+            byte[] bytes = new byte[header >>> 1];
+            chunk.get(position, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[header >>> 2];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = utf16At(chunk, position, i);
+        return new String(chars);
+    }
+
+    /**
+     * Compares the name, with each character folded by {@link NameIndex#fold(char)},
+     * with a folded key, like {@link String#compareTo(String)} but only by sign. With
+     * prefix, a name that starts with the key compares equal to it. Doesn't create a
+     * String.
+     */
+    int compareFolded(int ref, String key, boolean prefix) {
+        long location = locations[ref];
+        ByteBuffer chunk = chunks[(int) (location >>> 32)];
+        int header = readHeader(chunk, (int) location);
+        int position = (int) location + varintSize(header);
+        boolean utf16 = (header & 1) == UTF16;
+        int length = utf16 ? header >>> 2 : header >>> 1;
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            char c = NameIndex.fold(utf16 ? utf16At(chunk, position, i) : latin1At(chunk, position, i));
+            if (c != key.charAt(i))
+                return c < key.charAt(i) ? -1 : 1;
+        }
+        if (length == key.length() || prefix && length > key.length())
+            return 0;
+        return length < key.length() ? -1 : 1;
+    }
+
+    /**
+     * The number of distinct names.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes used by the dictionary, on the heap or in direct memory for the names
+     * themselves, not counting the reference each product keeps.
+     */
+    long bytes() {
+        return usedBytes + (long) size * ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Estimated bytes of heap the names that were added would have used as one
+     * String per product.
+     */
+    long stringBytes() {
+        return stringBytes;
+    }
+
+    private int append(String name, int hash) {
+        boolean latin1 = isLatin1(name);
+        int bytes = latin1 ? name.length() : 2 * name.length();
+        int header = bytes << 1 | (latin1 ? LATIN1 : UTF16);
+        int length = varintSize(header) + bytes;
+        if (chunkPosition + length > CHUNK_SIZE) {
+            int capacity = Math.max(CHUNK_SIZE, length);
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            chunks = grown;
+            chunkPosition = 0;
+        }
+        ByteBuffer chunk = chunks[chunks.length - 1];
+        int start = chunkPosition;
+        for (int h = header; ; h >>>= 7) {
+            if ((h & ~0x7F) == 0) {
+                chunk.put(chunkPosition++, (byte) h);
+                break;
+            }
+            chunk.put(chunkPosition++, (byte) ((h & 0x7F) | 0x80));
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (latin1) {
+                chunk.put(chunkPosition++, (byte) c);
+            } else {
+                chunk.putChar(chunkPosition, c);
+                chunkPosition += 2;
+            }
+        }
+        usedBytes += length;
+
+        if (size == locations.length) {
+            locations = Arrays.copyOf(locations, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        locations[size] = (long) (chunks.length - 1) << 32 | start;
+        hashes[size] = hash;
+        return size++;
+    }
+
+    private boolean matches(int ref, String name) {
+        long location = locations[ref];
+        ByteBuffer chunk = chunks[(int) (location >>> 32)];
+        int header = readHeader(chunk, (int) location);
+        int position = (int) location + varintSize(header);
+        boolean utf16 = (header & 1) == UTF16;
+        int length = utf16 ? header >>> 2 : header >>> 1;
+        if (length != name.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            char c = utf16 ? utf16At(chunk, position, i) : latin1At(chunk, position, i);
+            if (c != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static char utf16At(ByteBuffer chunk, int position, int index) {
+        return chunk.getChar(position + 2 * index);
+    }
+
+    private static char latin1At(ByteBuffer chunk, int position, int index) {
+        return (char) (chunk.get(position + index) & 0xFF);
+    }
+
+    private static int readHeader(ByteBuffer chunk, int position) {
+        int header = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk.get(position++);
+            header |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return header;
+        }
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int ref = 0; ref < size; ref++) {
+            int i = spread(hashes[ref]) & mask;
+            while (table[i] != 0)
+                i = (i + 1) & mask;
+            table[i] = ref + 1;
+        }
+    }
+
+    private static boolean isLatin1(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 0xFF)
+                return false;
+        }
+        return true;
+    }
+
+    private static int varintSize(int value) {
+        return (32 - Integer.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
+
+    private static long align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.warehouse;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The slots of products sorted by case folded name, for finding products by the
+ * start of their name.
+ * <p>
+ * Names that fold to the same text form a group, named by the reference of its
+ * first name in the {@link NameDictionary}. The groups are kept sorted by folded
+ * name in blocks of up to {@value #BLOCK_SIZE} references, compared by reading the
+ * names from the dictionary, so the index keeps no text of its own. The slots of a
+ * group are chained in the order they were added, through arrays indexed by
+ * reference and by slot. A prefix is looked up in logarithmic time and the matches
+ * follow it in order, and the index costs a few ints per name and product.
+ * <p>
+ * Folding maps each character to the lower case of its upper case, which makes
+ * names that only differ in case equal, in the same spirit as
+ * {@link Category#of(String)} makes categories equal whatever the case of their
+ * first letters.
+ */
+final class NameIndex {
+
+    private static final int BLOCK_SIZE = 256;
+    private static final int ARRAY_HEADER = 16;
+
+    private final NameDictionary names;
+    private int[][] blocks = new int[0][];
+    private int[] blockSizes = new int[0];
+    private int blockCount;
+    /**
+     * The group of each name, and for each group its first and last slot.
+     */
+    private int[] groups = new int[16];
+    private int[] firstSlots = new int[16];
+    private int[] lastSlots = new int[16];
+    /**
+     * The next slot of the same group for each slot, plus one, or 0 after the last.
+     */
+    private int[] nextSlots = new int[16];
+    private int nameCount;
+
+    NameIndex(NameDictionary names) {
+        this.names = names;
+    }
+
+    /**
+     * Adds the product at slot, which must be higher than any slot added before,
+     * with its name and the name's reference in the dictionary.
+     */
+    void add(String name, int ref, int slot) {
+        if (ref == nameCount)
+            addName(name, ref);
+        int group = groups[ref];
+        if (slot >= nextSlots.length)
+            nextSlots = Arrays.copyOf(nextSlots, Math.max(slot + 1, nextSlots.length * 2));
+        if (firstSlots[group] == 0)
+            firstSlots[group] = slot + 1;
+        else
+            nextSlots[lastSlots[group] - 1] = slot + 1;
+        lastSlots[group] = slot + 1;
+    }
+
+    /**
+     * Calls the action with the slots of at most limit products whose name starts
+     * with the prefix, ignoring case, by name and then in the order they were added.
+     */
+    void forEachWithPrefix(String prefix, int limit, IntConsumer action) {
+        String key = fold(prefix);
+        int remaining = limit;
+        long position = lowerBound(key);
+        for (int block = (int) (position >>> 32), i = (int) position; block < blockCount; block++, i = 0) {
+            for (; i < blockSizes[block]; i++) {
+                int group = blocks[block][i];
+                if (remaining == 0 || names.compareFolded(group, key, true) != 0)
+                    return;
+                for (int slot = firstSlots[group]; slot != 0 && remaining > 0; slot = nextSlots[slot - 1], remaining--)
+                    action.accept(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * Estimated bytes of heap used by the index.
+     */
+    long bytes() {
+        long bytes = ARRAY_HEADER + 4L * blocks.length + ARRAY_HEADER + 4L * blockSizes.length;
+        for (int block = 0; block < blockCount; block++)
+            bytes += ARRAY_HEADER + 4L * blocks[block].length;
+        return bytes + 3 * (ARRAY_HEADER + 4L * groups.length) + ARRAY_HEADER + 4L * nextSlots.length;
+    }
+
+    private void addName(String name, int ref) {
+        if (ref == groups.length) {
+            groups = Arrays.copyOf(groups, ref * 2);
+            firstSlots = Arrays.copyOf(firstSlots, ref * 2);
+            lastSlots = Arrays.copyOf(lastSlots, ref * 2);
+        }
+        nameCount++;
+        String key = fold(name);
+        long position = lowerBound(key);
+        int block = (int) (position >>> 32);
+        int i = (int) position;
+        if (block < blockCount && i < blockSizes[block] && names.compareFolded(blocks[block][i], key, false) == 0) {
+            groups[ref] = blocks[block][i];
+            return;
+        }
+        groups[ref] = ref;
+        insert(block, i, ref);
+    }
+
+    /**
+     * The position of the first group whose folded name isn't before the key, as
+     * the block in the high half and the index in it in the low half. The position
+     * is always in a block unless there are no blocks.
+     */
+    private long lowerBound(String key) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (names.compareFolded(blocks[middle][blockSizes[middle] - 1], key, false) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        if (blockCount == 0)
+            return 0;
+        int[] refs = blocks[low];
+        int from = 0;
+        int to = blockSizes[low];
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (names.compareFolded(refs[middle], key, false) < 0)
+                from = middle + 1;
+            else
+                to = middle;
+        }
+        return (long) low << 32 | from;
+    }
+
+    private void insert(int block, int i, int ref) {
+        if (blockCount == 0) {
+            blocks = new int[][] {new int[BLOCK_SIZE]};
+            blockSizes = new int[1];
+            blockCount = 1;
+        }
+        if (blockSizes[block] == BLOCK_SIZE) {
+            split(block);
+            if (i > BLOCK_SIZE / 2) {
+                block++;
+                i -= BLOCK_SIZE / 2;
+            }
+        }
+        int[] refs = blocks[block];
+        System.arraycopy(refs, i, refs, i + 1, blockSizes[block] - i);
+        refs[i] = ref;
+        blockSizes[block]++;
+    }
+
+    private void split(int block) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            blockSizes = Arrays.copyOf(blockSizes, blockCount * 2);
+        }
+        System.arraycopy(blocks, block + 1, blocks, block + 2, blockCount - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block + 2, blockCount - block - 1);
+        int half = BLOCK_SIZE / 2;
+        int[] upper = new int[BLOCK_SIZE];
+        System.arraycopy(blocks[block], half, upper, 0, BLOCK_SIZE - half);
+        blocks[block + 1] = upper;
+        blockSizes[block + 1] = BLOCK_SIZE - half;
+        blockSizes[block] = half;
+        blockCount++;
+    }
+
+    static String fold(String name) {
+        if (isFolded(name))
+            return name;
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++)
+            sb.append(fold(name.charAt(i)));
+        return sb.toString();
+    }
+
+    private static boolean isFolded(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(name.charAt(i)) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
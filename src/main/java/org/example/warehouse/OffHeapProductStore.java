@@ -0,0 +1,82 @@
+package org.example.warehouse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A {@link ProductStore} that keeps products outside the Java heap, in direct byte
+ * buffers, so the rows don't add to garbage collection work.
+ * <p>
+ * Each product is a fixed size row in a chunk of {@value #ROWS_PER_CHUNK} rows; the
+ * heap only holds the array of chunks. The memory of a store is released when the
+ * store itself is garbage collected.
+ * <p>
+ * The array of chunks is volatile and replaced when a chunk is added, so a reader
+ * that learned of a slot through a happens-before edge can read it while products
+ * are added.
+ */
+final class OffHeapProductStore implements ProductStore {
+
+    private static final int ROWS_PER_CHUNK = 1 << 16;
+    private static final int ROW_SHIFT = 16;
+
+    private static final int ID_HIGH = 0;
+    private static final int ID_LOW = 8;
+    private static final int CATEGORY_ORDINAL = 16;
+    private static final int NAME_REF = 20;
+    private static final int ROW_SIZE = 24;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int size;
+
+    @Override
+    public int add(UUID id, int nameRef, int categoryOrdinal) {
+        if ((size & (ROWS_PER_CHUNK - 1)) == 0) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect(ROWS_PER_CHUNK * ROW_SIZE).order(ByteOrder.nativeOrder());
+            chunks = grown;
+        }
+        ByteBuffer chunk = chunkOf(size);
+        int row = offsetOf(size);
+        chunk.putLong(row + ID_HIGH, id.getMostSignificantBits());
+        chunk.putLong(row + ID_LOW, id.getLeastSignificantBits());
+        chunk.putInt(row + CATEGORY_ORDINAL, categoryOrdinal);
+        chunk.putInt(row + NAME_REF, nameRef);
+        return size++;
+    }
+
+    @Override
+    public long idHigh(int slot) {
+        return chunkOf(slot).getLong(offsetOf(slot) + ID_HIGH);
+    }
+
+    @Override
+    public long idLow(int slot) {
+        return chunkOf(slot).getLong(offsetOf(slot) + ID_LOW);
+    }
+
+    @Override
+    public int nameRef(int slot) {
+        return chunkOf(slot).getInt(offsetOf(slot) + NAME_REF);
+    }
+
+    @Override
+    public int categoryOrdinal(int slot) {
+        return chunkOf(slot).getInt(offsetOf(slot) + CATEGORY_ORDINAL);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private ByteBuffer chunkOf(int slot) {
+        return chunks[slot >>> ROW_SHIFT];
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot & (ROWS_PER_CHUNK - 1)) * ROW_SIZE;
+    }
+}
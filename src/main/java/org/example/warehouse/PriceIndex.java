@@ -0,0 +1,232 @@
+package org.example.warehouse;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Slots of products sorted by price and then by slot, so products with the same
+ * price stay in the order they were added.
+ * <p>
+ * Each entry is a price and a slot in parallel primitive arrays, kept in blocks of
+ * up to {@value #BLOCK_SIZE} entries. A block is found by a binary search over the
+ * last entry of each block and an entry by one within the block, so adding or
+ * removing an entry takes logarithmic time plus moving at most a block, however
+ * many products share its price.
+ */
+final class PriceIndex {
+
+    private static final int BLOCK_SIZE = 256;
+
+    private long[][] prices = new long[0][];
+    private int[][] slots = new int[0][];
+    private int[] blockSizes = new int[0];
+    private int blockCount;
+    private int size;
+
+    void add(long price, int slot) {
+        long position;
+        if (blockCount == 0) {
+            prices = new long[][] {new long[BLOCK_SIZE]};
+            slots = new int[][] {new int[BLOCK_SIZE]};
+            blockSizes = new int[1];
+            blockCount = 1;
+            position = 0;
+        } else {
+            position = lowerBound(price, slot);
+        }
+        int block = (int) (position >>> 32);
+        int i = (int) position;
+        if (block == blockCount) {
+            block--;
+            i = blockSizes[block];
+        }
+        if (blockSizes[block] == BLOCK_SIZE) {
+            split(block);
+            if (i > BLOCK_SIZE / 2) {
+                block++;
+                i -= BLOCK_SIZE / 2;
+            }
+        }
+        int count = blockSizes[block];
+        System.arraycopy(prices[block], i, prices[block], i + 1, count - i);
+        System.arraycopy(slots[block], i, slots[block], i + 1, count - i);
+        prices[block][i] = price;
+        slots[block][i] = slot;
+        blockSizes[block]++;
+        size++;
+    }
+
+    /**
+     * Removes the entry of the slot at the price.
+     *
+     * @return false if there was no such entry
+     */
+    boolean remove(long price, int slot) {
+        long position = lowerBound(price, slot);
+        int block = (int) (position >>> 32);
+        int i = (int) position;
+        if (block == blockCount || prices[block][i] != price || slots[block][i] != slot)
+            return false;
+        int count = --blockSizes[block];
+        if (count == 0) {
+            System.arraycopy(prices, block + 1, prices, block, blockCount - block - 1);
+            System.arraycopy(slots, block + 1, slots, block, blockCount - block - 1);
+            System.arraycopy(blockSizes, block + 1, blockSizes, block, blockCount - block - 1);
+            blockCount--;
+        } else {
+            System.arraycopy(prices[block], i + 1, prices[block], i, count - i);
+            System.arraycopy(slots[block], i + 1, slots[block], i, count - i);
+        }
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The lowest price, which the index must have.
+     */
+    long min() {
+        return prices[0][0];
+    }
+
+    /**
+     * The highest price, which the index must have.
+     */
+    long max() {
+        return prices[blockCount - 1][blockSizes[blockCount - 1] - 1];
+    }
+
+    /**
+     * Multiplies every price by the factor, which must be positive and not make any
+     * of them overflow, so the order stays the same.
+     */
+    void multiplyPrices(long factor) {
+        for (int block = 0; block < blockCount; block++) {
+            for (int i = 0; i < blockSizes[block]; i++)
+                prices[block][i] *= factor;
+        }
+    }
+
+    /**
+     * Calls the action with the slots of at most limit products priced from min to
+     * max, inclusive, by price. Products with the same price come in the order they
+     * were added either way.
+     */
+    void forEachInRange(long min, long max, boolean descending, int limit, IntConsumer action) {
+        if (min > max || limit == 0)
+            return;
+        if (!descending) {
+            int remaining = limit;
+            long position = lowerBound(min, Integer.MIN_VALUE);
+            for (int block = (int) (position >>> 32), i = (int) position; block < blockCount; block++, i = 0) {
+                for (; i < blockSizes[block]; i++) {
+                    if (prices[block][i] > max)
+                        return;
+                    action.accept(slots[block][i]);
+                    if (--remaining == 0)
+                        return;
+                }
+            }
+            return;
+        }
+        int remaining = limit;
+        long end = previous(lowerBound(max, Integer.MAX_VALUE));
+        while (end >= 0 && priceAt(end) >= min) {
+            long price = priceAt(end);
+            long start = end;
+            for (long before = previous(start); before >= 0 && priceAt(before) == price; before = previous(before))
+                start = before;
+            for (long position = start; ; position = next(position)) {
+                action.accept(slots[(int) (position >>> 32)][(int) position]);
+                if (--remaining == 0)
+                    return;
+                if (position == end)
+                    break;
+            }
+            end = previous(start);
+        }
+    }
+
+    /**
+     * The position of the first entry not before the price and slot, as the block in
+     * the high half and the index in it in the low half. The block is blockCount if
+     * every entry is before it.
+     */
+    private long lowerBound(long price, int slot) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int last = blockSizes[middle] - 1;
+            if (compare(prices[middle][last], slots[middle][last], price, slot) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        if (low == blockCount)
+            return (long) blockCount << 32;
+        long[] blockPrices = prices[low];
+        int[] blockSlots = slots[low];
+        int from = 0;
+        int to = blockSizes[low];
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (compare(blockPrices[middle], blockSlots[middle], price, slot) < 0)
+                from = middle + 1;
+            else
+                to = middle;
+        }
+        return (long) low << 32 | from;
+    }
+
+    /**
+     * The position before the given one, or -1 if it's the first.
+     */
+    private long previous(long position) {
+        int block = (int) (position >>> 32);
+        int i = (int) position;
+        if (i > 0)
+            return (long) block << 32 | (i - 1);
+        return block == 0 ? -1 : (long) (block - 1) << 32 | (blockSizes[block - 1] - 1);
+    }
+
+    private long next(long position) {
+        int block = (int) (position >>> 32);
+        int i = (int) position + 1;
+        return i < blockSizes[block] ? (long) block << 32 | i : (long) (block + 1) << 32;
+    }
+
+    private long priceAt(long position) {
+        return prices[(int) (position >>> 32)][(int) position];
+    }
+
+    private void split(int block) {
+        if (blockCount == prices.length) {
+            int capacity = Math.max(4, blockCount * 2);
+            prices = Arrays.copyOf(prices, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+        }
+        System.arraycopy(prices, block + 1, prices, block + 2, blockCount - block - 1);
+        System.arraycopy(slots, block + 1, slots, block + 2, blockCount - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block + 2, blockCount - block - 1);
+        int half = BLOCK_SIZE / 2;
+        long[] upperPrices = new long[BLOCK_SIZE];
+        int[] upperSlots = new int[BLOCK_SIZE];
+        System.arraycopy(prices[block], half, upperPrices, 0, BLOCK_SIZE - half);
+        System.arraycopy(slots[block], half, upperSlots, 0, BLOCK_SIZE - half);
+        prices[block + 1] = upperPrices;
+        slots[block + 1] = upperSlots;
+        blockSizes[block + 1] = BLOCK_SIZE - half;
+        blockSizes[block] = half;
+        blockCount++;
+    }
+
+    private static int compare(long price, int slot, long otherPrice, int otherSlot) {
+        int byPrice = Long.compare(price, otherPrice);
+        return byPrice != 0 ? byPrice : Integer.compare(slot, otherSlot);
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.function.IntConsumer;
+
+/**
+ * Count, total, min and max of a changing set of prices, in minor units, and the
+ * slots of the products at each price.
+ * <p>
+ * The slots are kept sorted by price in a {@link PriceIndex}, so min and max stay
+ * correct when the current min or max price is changed and a price range can be
+ * listed without sorting. Reading the statistics is constant time and changes take
+ * logarithmic time, however many products share a price.
+ * <p>
+ * The total is a {@code long} until a change would overflow it, and a
+ * {@code BigInteger} from then on.
+ */
+final class PriceStatistics {
+
+    private final PriceIndex slotsByPrice = new PriceIndex();
+    private int count;
+    private long total;
+    private BigInteger bigTotal;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Adds the product at slot, which must be higher than any slot added before.
+     */
+    void add(int slot, long price) {
+        slotsByPrice.add(price, slot);
+        count++;
+        addToTotal(price, 0);
+        min = Math.min(min, price);
+        max = Math.max(max, price);
+    }
+
+    void replace(int slot, long oldPrice, long newPrice) {
+        slotsByPrice.remove(oldPrice, slot);
+        slotsByPrice.add(newPrice, slot);
+        addToTotal(newPrice, oldPrice);
+        min = slotsByPrice.min();
+        max = slotsByPrice.max();
+    }
+
+    /**
+     * Multiplies every price by the factor, for a change of scale. Check with
+     * {@link #canMultiply(long)} first.
+     */
+    void multiply(long factor) {
+        slotsByPrice.multiplyPrices(factor);
+        if (bigTotal == null) {
+            try {
+                total = Math.multiplyExact(total, factor);
+            } catch (ArithmeticException e) {
+                bigTotal = BigInteger.valueOf(total).multiply(BigInteger.valueOf(factor));
+            }
+        } else {
+            bigTotal = bigTotal.multiply(BigInteger.valueOf(factor));
+        }
+        if (count > 0) {
+            min *= factor;
+            max *= factor;
+        }
+    }
+
+    /**
+     * Whether every price multiplied by the factor still fits in a long.
+     */
+    boolean canMultiply(long factor) {
+        if (count == 0)
+            return true;
+        try {
+            Math.multiplyExact(min, factor);
+            Math.multiplyExact(max, factor);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private void addToTotal(long added, long removed) {
+        if (bigTotal == null) {
+            try {
+                total = Math.subtractExact(Math.addExact(total, added), removed);
+                return;
+            } catch (ArithmeticException e) {
+                bigTotal = BigInteger.valueOf(total);
+            }
+        }
+        bigTotal = bigTotal.add(BigInteger.valueOf(added)).subtract(BigInteger.valueOf(removed));
+    }
+
+    /**
+     * Calls the action with the slots of at most limit products priced from min to
+     * max, inclusive, by price. Products with the same price come in the order they
+     * were added either way. Costs logarithmic time to find the first product and
+     * constant time for each one after it.
+     */
+    void forEachInRange(long min, long max, boolean descending, int limit, IntConsumer action) {
+        slotsByPrice.forEachInRange(min, max, descending, limit, action);
+    }
+
+    /**
+     * The statistics as prices, for minor units at the given scale.
+     */
+    CategoryStatistics snapshot(int scale) {
+        BigDecimal sum = bigTotal == null ? BigDecimal.valueOf(total, scale) : new BigDecimal(bigTotal, scale);
+        BigDecimal mean = sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+        return new CategoryStatistics(count, sum, BigDecimal.valueOf(min, scale), BigDecimal.valueOf(max, scale), mean);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.warehouse;
+
+/**
+ * A persistent vector of prices, each kept as {@code long} minor units and the scale
+ * it was given with, so snapshots of a warehouse keep the prices they were taken
+ * with.
+ * <p>
+ * A 32-way trie. Setting a price copies its leaf and the nodes on the path to it, so
+ * a vector that was handed out never changes and shares everything else with the
+ * new one. Appending writes in place instead, which no older vector can see as none
+ * reads past its own size. Because of that only the latest vector may be appended
+ * to or set.
+ */
+final class PriceVector {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * A {@link Leaf} when {@code shift} is zero, otherwise an {@code Object[]} of
+     * children.
+     */
+    private final Object root;
+    private final int shift;
+    private final int size;
+
+    private PriceVector(Object root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    static PriceVector empty() {
+        return new PriceVector(new Leaf(), 0, 0);
+    }
+
+    PriceVector append(long units, int scale) {
+        Object newRoot = root;
+        int newShift = shift;
+        if (size == 1 << (shift + BITS)) {
+            Object[] node = new Object[WIDTH];
+            node[0] = root;
+            newRoot = node;
+            newShift += BITS;
+        }
+        Object node = newRoot;
+        for (int level = newShift; level > 0; level -= BITS) {
+            Object[] children = (Object[]) node;
+            int i = (size >>> level) & MASK;
+            if (children[i] == null)
+                children[i] = level == BITS ? new Leaf() : new Object[WIDTH];
+            node = children[i];
+        }
+        Leaf leaf = (Leaf) node;
+        leaf.units[size & MASK] = units;
+        leaf.scales[size & MASK] = (byte) scale;
+        return new PriceVector(newRoot, newShift, size + 1);
+    }
+
+    PriceVector set(int index, long units, int scale) {
+        return new PriceVector(set(root, shift, index, units, scale), shift, size);
+    }
+
+    long units(int index) {
+        return leafOf(index).units[index & MASK];
+    }
+
+    int scale(int index) {
+        return leafOf(index).scales[index & MASK];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * A vector with every price multiplied by the factor, which must not make any of
+     * them overflow. Copies every node.
+     */
+    PriceVector multiplied(long factor) {
+        return new PriceVector(multiplied(root, shift, factor), shift, size);
+    }
+
+    private Leaf leafOf(int index) {
+        Object node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = ((Object[]) node)[(index >>> level) & MASK];
+        return (Leaf) node;
+    }
+
+    private static Object set(Object node, int level, int index, long units, int scale) {
+        if (level == 0) {
+            Leaf leaf = ((Leaf) node).copy();
+            leaf.units[index & MASK] = units;
+            leaf.scales[index & MASK] = (byte) scale;
+            return leaf;
+        }
+        Object[] children = ((Object[]) node).clone();
+        int i = (index >>> level) & MASK;
+        children[i] = set(children[i], level - BITS, index, units, scale);
+        return children;
+    }
+
+    private static Object multiplied(Object node, int level, long factor) {
+        if (level == 0) {
+            Leaf leaf = ((Leaf) node).copy();
+            for (int i = 0; i < WIDTH; i++)
+                leaf.units[i] *= factor;
+            return leaf;
+        }
+        Object[] children = ((Object[]) node).clone();
+        for (int i = 0; i < WIDTH && children[i] != null; i++)
+            children[i] = multiplied(children[i], level - BITS, factor);
+        return children;
+    }
+
+    private static final class Leaf {
+        final long[] units;
+        final byte[] scales;
+
+        Leaf() {
+            this(new long[WIDTH], new byte[WIDTH]);
+        }
+
+        private Leaf(long[] units, byte[] scales) {
+            this.units = units;
+            this.scales = scales;
+        }
+
+        Leaf copy() {
+            return new Leaf(units.clone(), scales.clone());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between {@link BigDecimal} prices and the fixed point representation a
+ * warehouse keeps them in: a {@code long} count of minor units at the warehouse's
+ * price scale, plus the scale the price was given with so the exact same
+ * {@code BigDecimal} can be recreated.
+ */
+final class Prices {
+
+    private Prices() {
+    }
+
+    /**
+     * The price as minor units at the given scale, for example cents at scale 2.
+     * Trailing zeros don't count as decimals, so 9.990 is 999 cents.
+     *
+     * @throws IllegalArgumentException if the price has more significant decimals
+     *                                  than the scale allows, doesn't fit in a long,
+     *                                  or its own scale doesn't fit in a byte
+     */
+    static long toUnits(BigDecimal price, int scale) {
+        if (price.stripTrailingZeros().scale() > scale)
+            throw new IllegalArgumentException("Price can't have more than " + scale + " decimals.");
+        if (price.scale() < Byte.MIN_VALUE || price.scale() > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Price is out of range.");
+        try {
+            return price.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price is out of range.", e);
+        }
+    }
+
+    /**
+     * The price as minor units at the given scale for use as a range bound, rounded in
+     * the given direction and clamped to the range of a long, so any price is a valid
+     * bound.
+     */
+    static long toBound(BigDecimal price, int scale, RoundingMode rounding) {
+        BigInteger units = price.setScale(scale, rounding).unscaledValue();
+        if (units.bitLength() < Long.SIZE)
+            return units.longValue();
+        return units.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    /**
+     * Recreates a price from its minor units.
+     *
+     * @param displayScale the scale of the price as it was given, which may be larger
+     *                     than scale when the extra decimals were trailing zeros
+     */
+    static BigDecimal toBigDecimal(long units, int scale, int displayScale) {
+        BigDecimal price = BigDecimal.valueOf(units, scale);
+        return displayScale == scale ? price : price.setScale(displayScale);
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.warehouse;
+
+import java.util.List;
+
+/**
+ * A page of products from {@link Warehouse#getProductPage(String, int)}.
+ *
+ * @param products   the products of the page, in the order they were added
+ * @param nextCursor where the next page starts; products added later show up on it,
+ *                   so it can be kept to poll for new products
+ * @param hasMore    whether there were products after this page when it was read
+ */
+public record ProductPage(List<ProductRecord> products, String nextCursor, boolean hasMore) {
+}
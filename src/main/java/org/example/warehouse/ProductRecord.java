@@ -0,0 +1,28 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A product in a {@link Warehouse}. Products are identified by their id, so a record
+ * with an updated price is equal to the record it replaced. Records without an id,
+ * as given to {@link Warehouse#addProducts(java.util.Collection)}, are compared by
+ * all their components instead, so different products without an id stay apart in
+ * a set.
+ */
+public record ProductRecord(UUID uuid, String name, Category category, BigDecimal price) {
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ProductRecord other) || !Objects.equals(uuid, other.uuid))
+            return false;
+        return uuid != null || Objects.equals(name, other.name) && Objects.equals(category, other.category)
+                && Objects.equals(price, other.price);
+    }
+
+    @Override
+    public int hashCode() {
+        return uuid != null ? uuid.hashCode() : Objects.hash(name, category, price);
+    }
+}
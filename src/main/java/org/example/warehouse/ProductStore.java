@@ -0,0 +1,32 @@
+package org.example.warehouse;
+
+import java.util.UUID;
+
+/**
+ * Where a warehouse keeps its products, addressed by slot: the index a product was
+ * added at. Names are kept as references into a {@link NameDictionary}.
+ * <p>
+ * Prices aren't kept here: they change, and snapshots of a warehouse must keep the
+ * prices they were taken with, so the warehouse keeps them in a {@link PriceVector}.
+ */
+interface ProductStore {
+
+    /**
+     * Appends a product and returns its slot.
+     */
+    int add(UUID id, int nameRef, int categoryOrdinal);
+
+    long idHigh(int slot);
+
+    long idLow(int slot);
+
+    default UUID id(int slot) {
+        return new UUID(idHigh(slot), idLow(slot));
+    }
+
+    int nameRef(int slot);
+
+    int categoryOrdinal(int slot);
+
+    int size();
+}
@@ -0,0 +1,45 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * A read-only view of a product in a {@link Warehouse}, handed out by
+ * {@link Warehouse#forEachProduct(java.util.function.Consumer)}.
+ * <p>
+ * The same view is moved from product to product, so it's only valid during the
+ * call it was passed to. Use {@link #toRecord()} to keep a product. The primitive
+ * accessors read the warehouse's storage directly and don't allocate.
+ */
+public interface ProductView {
+
+    long uuidMostSignificantBits();
+
+    long uuidLeastSignificantBits();
+
+    /**
+     * The price as whole minor units at {@link #priceScale()}.
+     */
+    long priceInMinorUnits();
+
+    /**
+     * The scale of {@link #priceInMinorUnits()}: the warehouse's price scale when
+     * the view was handed out, which may be higher than
+     * {@link WarehouseOptions#priceScale()} unless that is fixed.
+     */
+    int priceScale();
+
+    Category category();
+
+    String name();
+
+    default UUID uuid() {
+        return new UUID(uuidMostSignificantBits(), uuidLeastSignificantBits());
+    }
+
+    BigDecimal price();
+
+    default ProductRecord toRecord() {
+        return new ProductRecord(uuid(), name(), category(), price());
+    }
+}
@@ -0,0 +1,254 @@
+package org.example.warehouse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * An inverted index from each trigram, three consecutive characters, of the case
+ * folded product names to the slots of the products having it, for finding
+ * products by any part of their name.
+ * <p>
+ * Posting lists hold ascending slots as varint encoded gaps, which mostly takes a
+ * byte or two per slot. Products containing a text are found by intersecting the
+ * lists of the text's trigrams, shortest first; the result is a superset of the
+ * matches that still has to be checked against the names.
+ * <p>
+ * A trigram is packed into a {@code long} and the lists are found through an open
+ * addressing table keyed by it, like {@link UuidIndex}, so neither adding nor
+ * looking up boxes a key.
+ * <p>
+ * Adding is for one thread at a time, but {@link #addAll(int, int, IntFunction)}
+ * splits the trigrams of a large batch of products over the common pool.
+ */
+final class TrigramIndex {
+
+    static final int TRIGRAM_LENGTH = 3;
+
+    private static final int BATCH_SIZE = 1 << 12;
+
+    private final TrigramTable<Postings> postings = new TrigramTable<>();
+
+    /**
+     * Adds the product at slot, which must be higher than any slot added before.
+     */
+    void add(String name, int slot) {
+        String folded = NameIndex.fold(name);
+        for (int i = 0; i + TRIGRAM_LENGTH <= folded.length(); i++)
+            postingsOf(trigram(folded, i)).add(slot);
+    }
+
+    /**
+     * Adds the products at slots from, inclusive, to to, exclusive, which must be
+     * higher than any slot added before. The trigrams of each batch of products are
+     * collected in parallel and then appended in slot order.
+     */
+    void addAll(int from, int to, IntFunction<String> nameOf) {
+        if (to - from < 2 * BATCH_SIZE) {
+            for (int slot = from; slot < to; slot++)
+                add(nameOf.apply(slot), slot);
+            return;
+        }
+        int batches = (to - from + BATCH_SIZE - 1) / BATCH_SIZE;
+        List<TrigramTable<IntList>> collected = IntStream.range(0, batches).parallel()
+                .mapToObj(batch -> collect(from + batch * BATCH_SIZE, Math.min(to, from + (batch + 1) * BATCH_SIZE), nameOf))
+                .toList();
+        for (TrigramTable<IntList> batch : collected) {
+            for (int entry = 0; entry < batch.capacity(); entry++) {
+                IntList slots = batch.valueAt(entry);
+                if (slots == null)
+                    continue;
+                Postings list = postingsOf(batch.keyAt(entry));
+                for (int i = 0; i < slots.size(); i++)
+                    list.add(slots.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the ascending slots of the products whose folded name has every
+     * trigram of the folded text, which must be at least {@value #TRIGRAM_LENGTH}
+     * characters.
+     */
+    int[] candidates(String folded) {
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= folded.length(); i++) {
+            Postings list = postings.get(trigram(folded, i));
+            if (list == null)
+                return new int[0];
+            if (!lists.contains(list))
+                lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.count));
+        int[] candidates = lists.get(0).decode();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++)
+            count = lists.get(i).retain(candidates, count);
+        return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    private Postings postingsOf(long trigram) {
+        return postings.getOrAdd(trigram, Postings::new);
+    }
+
+    private static TrigramTable<IntList> collect(int from, int to, IntFunction<String> nameOf) {
+        TrigramTable<IntList> slotsByTrigram = new TrigramTable<>();
+        for (int slot = from; slot < to; slot++) {
+            String folded = NameIndex.fold(nameOf.apply(slot));
+            for (int i = 0; i + TRIGRAM_LENGTH <= folded.length(); i++) {
+                IntList slots = slotsByTrigram.getOrAdd(trigram(folded, i), () -> new IntList(4));
+                if (slots.isEmpty() || slots.get(slots.size() - 1) != slot)
+                    slots.add(slot);
+            }
+        }
+        return slotsByTrigram;
+    }
+
+    private static long trigram(String folded, int index) {
+        return (long) folded.charAt(index) << 32 | (long) folded.charAt(index + 1) << 16 | folded.charAt(index + 2);
+    }
+
+    /**
+     * Values by trigram, in an open addressing table with linear probing. An entry
+     * without a value is empty, so any trigram can be a key.
+     */
+    private static final class TrigramTable<V> {
+        private long[] keys = new long[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        V get(long trigram) {
+            int mask = keys.length - 1;
+            for (int i = hash(trigram) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == trigram)
+                    return (V) values[i];
+            }
+            return null;
+        }
+
+        V getOrAdd(long trigram, Supplier<V> create) {
+            V value = get(trigram);
+            if (value != null)
+                return value;
+            if ((size + 1) * 2 > keys.length)
+                resize();
+            value = create.get();
+            insert(keys, values, trigram, value);
+            size++;
+            return value;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        long keyAt(int entry) {
+            return keys[entry];
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int entry) {
+            return (V) values[entry];
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null)
+                    insert(keys, values, oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static void insert(long[] keys, Object[] values, long trigram, Object value) {
+            int mask = keys.length - 1;
+            int i = hash(trigram) & mask;
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = trigram;
+            values[i] = value;
+        }
+
+        private static int hash(long trigram) {
+            long h = trigram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Ascending slots as varint encoded gaps from the previous slot.
+     */
+    private static final class Postings {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int slot) {
+            if (slot == last)
+                return;
+            if (length + 5 > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length * 2));
+            for (int gap = slot - last; ; gap >>>= 7) {
+                if ((gap & ~0x7F) == 0) {
+                    bytes[length++] = (byte) gap;
+                    break;
+                }
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+            }
+            last = slot;
+            count++;
+        }
+
+        int[] decode() {
+            int[] slots = new int[count];
+            int slot = -1;
+            for (int i = 0, position = 0; i < count; i++) {
+                int gap = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = bytes[position++];
+                    gap |= (b & 0x7F) << shift;
+                    if (b >= 0)
+                        break;
+                }
+                slots[i] = slot += gap;
+            }
+            return slots;
+        }
+
+        /**
+         * Keeps the first count candidates that are in this list, in order.
+         *
+         * @return the number of candidates kept
+         */
+        int retain(int[] candidates, int count) {
+            int kept = 0;
+            int slot = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                while (slot < candidates[i] && position < length) {
+                    int gap = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = bytes[position++];
+                        gap |= (b & 0x7F) << shift;
+                        if (b >= 0)
+                            break;
+                    }
+                    slot += gap;
+                }
+                if (slot == candidates[i])
+                    candidates[kept++] = slot;
+                else if (slot < candidates[i])
+                    break;
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.warehouse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable, per-thread buffer that UTF-8 encoded names are decoded into so they can
+ * be looked up as a {@link CharSequence} without creating a String.
+ * <p>
+ * The contents are only valid until the next decode on the same thread, so an
+ * instance must never be kept or handed out.
+ */
+final class Utf8Name implements CharSequence {
+
+    private static final ThreadLocal<Utf8Name> LOCAL = ThreadLocal.withInitial(Utf8Name::new);
+
+    private char[] chars = new char[64];
+    private byte[] bytes = new byte[0];
+    private int length;
+
+    private Utf8Name() {
+    }
+
+    static Utf8Name decode(byte[] utf8, int offset, int length) {
+        Utf8Name name = LOCAL.get();
+        name.decodeFrom(utf8, offset, length);
+        return name;
+    }
+
+    static Utf8Name decode(ByteBuffer utf8, int offset, int length) {
+        if (utf8.hasArray())
+            return decode(utf8.array(), utf8.arrayOffset() + offset, length);
+        Utf8Name name = LOCAL.get();
+        if (name.bytes.length < length)
+            name.bytes = new byte[Math.max(length, 64)];
+        utf8.get(offset, name.bytes, 0, length);
+        name.decodeFrom(name.bytes, 0, length);
+        return name;
+    }
+
+    /**
+     * Decodes well-formed UTF-8 directly: only the shortest form of each code point,
+     * and never a surrogate. Anything else is decoded by {@code String}, so malformed
+     * bytes give exactly the replacement characters they would in a String and look
+     * up the same category.
+     */
+    private void decodeFrom(byte[] utf8, int offset, int count) {
+        if (chars.length < count)
+            chars = Arrays.copyOf(chars, Math.max(count, chars.length * 2));
+        int n = 0;
+        int end = offset + count;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+                continue;
+            }
+            int length;
+            int low = 0x80;
+            int high = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                length = 2;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                length = 3;
+                if (b == 0xE0)
+                    low = 0xA0;
+                else if (b == 0xED)
+                    high = 0x9F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                length = 4;
+                if (b == 0xF0)
+                    low = 0x90;
+                else if (b == 0xF4)
+                    high = 0x8F;
+            } else {
+                decodeMalformed(utf8, offset, count);
+                return;
+            }
+            if (end - i < length - 1) {
+                decodeMalformed(utf8, offset, count);
+                return;
+            }
+            int codePoint = b & (0xFF >>> (length + 1));
+            for (int read = 1; read < length; read++) {
+                int c = utf8[i++] & 0xFF;
+                if (c < low || c > high) {
+                    decodeMalformed(utf8, offset, count);
+                    return;
+                }
+                codePoint = codePoint << 6 | (c & 0x3F);
+                low = 0x80;
+                high = 0xBF;
+            }
+            if (length == 4)
+                n += Character.toChars(codePoint, chars, n);
+            else
+                chars[n++] = (char) codePoint;
+        }
+        length = n;
+    }
+
+    private void decodeMalformed(byte[] utf8, int offset, int count) {
+        String decoded = new String(utf8, offset, count, StandardCharsets.UTF_8);
+        decoded.getChars(0, decoded.length(), chars, 0);
+        length = decoded.length();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.warehouse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Maps product ids to slots without boxing.
+ * <p>
+ * An open addressing table with linear probing that keeps each entry as
+ * {@value #ENTRY_LONGS} consecutive {@code long}s in one array: the two halves of
+ * the id and the slot, offset by one so that 0 marks an empty entry. A probe reads
+ * one entry from one array, mostly within one cache line, and never calls
+ * {@code UUID.hashCode} or {@code equals}.
+ * <p>
+ * One thread may put while others get. An entry's slot is written after its id and
+ * read before it, and a grown array is filled before it's published, so a reader
+ * finds every id that was put before it learned of the id.
+ */
+final class UuidIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ENTRY_LONGS = 3;
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile long[] entries = new long[INITIAL_CAPACITY * ENTRY_LONGS];
+    private int capacity = INITIAL_CAPACITY;
+    private int size;
+
+    /**
+     * Returns the slot for the id, or -1 if it isn't indexed.
+     */
+    int get(long mostSignificantBits, long leastSignificantBits) {
+        long[] entries = this.entries;
+        int mask = entries.length / ENTRY_LONGS - 1;
+        for (int i = hash(mostSignificantBits, leastSignificantBits) & mask; ; i = (i + 1) & mask) {
+            int entry = i * ENTRY_LONGS;
+            long slot = (long) ENTRIES.getAcquire(entries, entry + 2);
+            if (slot == 0)
+                return -1;
+            if (entries[entry] == mostSignificantBits && entries[entry + 1] == leastSignificantBits)
+                return (int) slot - 1;
+        }
+    }
+
+    /**
+     * Indexes an id that isn't indexed yet.
+     */
+    void put(long mostSignificantBits, long leastSignificantBits, int slot) {
+        if ((size + 1) * 2 > capacity)
+            resize();
+        insert(entries, mostSignificantBits, leastSignificantBits, slot + 1);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] old = entries;
+        long[] grown = new long[old.length * 2];
+        for (int entry = 0; entry < old.length; entry += ENTRY_LONGS) {
+            if (old[entry + 2] != 0)
+                insert(grown, old[entry], old[entry + 1], old[entry + 2]);
+        }
+        capacity *= 2;
+        entries = grown;
+    }
+
+    private static void insert(long[] entries, long most, long least, long slot) {
+        int mask = entries.length / ENTRY_LONGS - 1;
+        int i = hash(most, least) & mask;
+        while (entries[i * ENTRY_LONGS + 2] != 0)
+            i = (i + 1) & mask;
+        int entry = i * ENTRY_LONGS;
+        entries[entry] = most;
+        entries[entry + 1] = least;
+        ENTRIES.setRelease(entries, entry + 2, slot);
+    }
+
+    private static int hash(long most, long least) {
+        long h = (most ^ Long.rotateLeft(least, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.warehouse;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time ordered version 7 UUIDs, as defined by RFC 9562.
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, followed by a 12 bit counter
+ * and 62 random bits. Each thread keeps its own counter, which starts at a random
+ * value below 2048 every millisecond, so ids from one thread always increase and
+ * generating an id never blocks. Should a thread use up its counter within a
+ * millisecond, it moves on to the next millisecond early.
+ * <p>
+ * The random bits come from {@link ThreadLocalRandom}, not a secure random
+ * generator, so the ids are unique but not unguessable.
+ */
+public final class UuidV7 {
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        State state = STATE.get();
+        long now = System.currentTimeMillis();
+        if (now > state.millis) {
+            state.millis = now;
+            state.counter = random.nextInt(1 << 11);
+        } else if (++state.counter > 0xFFF) {
+            state.millis++;
+            state.counter = random.nextInt(1 << 11);
+        }
+        long mostSignificantBits = state.millis << 16 | 0x7000 | state.counter;
+        long leastSignificantBits = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private static final class State {
+        long millis;
+        int counter;
+    }
+}
@@ -0,0 +1,860 @@
+package org.example.warehouse;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * A named collection of products.
+ * <p>
+ * Products are kept in insertion order and addressed by their slot, the index they
+ * were added at. Per-category data is kept in arrays indexed by
+ * {@link Category#ordinal()}, so category queries never hash a category.
+ * <p>
+ * Each category has the slots of all products in its subtree, the category itself
+ * and all its subcategories, so a category query only touches matching products.
+ * The price statistics of each subtree are updated on every change, so reading
+ * them is constant time.
+ * <p>
+ * Prices are stored as {@code long} minor units at a price scale that starts at
+ * {@link WarehouseOptions#priceScale()}, so comparisons and sums never touch
+ * {@code BigDecimal}. A {@code BigDecimal} is only created when a product or a
+ * statistic is handed out, with the same scale the price was given with. A price
+ * with more decimals raises the scale and multiplies every stored price to match,
+ * unless {@link WarehouseOptions#fixedPriceScale()} is set, in which case it is
+ * rejected.
+ * <p>
+ * Product lists are handed out as snapshots that read the live columns. Since
+ * products are only ever appended and never change category, a snapshot only has to
+ * remember how many products there were and the prices at the time, which a
+ * {@link PriceVector} gives in constant time. The vector, like the price, name and
+ * category indexes, stays on the heap with either {@link WarehouseOptions.Storage};
+ * only the product rows and the text of names can be kept off heap.
+ * <p>
+ * Changes take the write lock and publish a new snapshot when they are done. Queries
+ * that use the price or name indexes take the read lock, so they only wait for
+ * changes, not for each other. {@link #getProducts()}, {@link #getProductById(UUID)},
+ * {@link #forEachProduct(Consumer)} and the other methods that say so only read the
+ * latest snapshot, so any number of threads can call them without locking or copying.
+ */
+public class Warehouse {
+
+    private static final String DEFAULT_NAME = "Warehouse";
+    private static final int INITIAL_FILTER_CAPACITY = 1 << 10;
+    private static final int CURSOR_BYTES = 8;
+
+    private final String name;
+    private final boolean fixedPriceScale;
+    private int priceScale;
+    private final ProductStore products;
+    private final NameDictionary names;
+    private final UuidIndex slotsById = new UuidIndex();
+    private final ChangeTracker changes = new ChangeTracker();
+    private final PriceStatistics allPrices = new PriceStatistics();
+    private final NameIndex nameIndex;
+    private final TrigramIndex trigrams;
+    private final double filterFalsePositiveRate;
+    private volatile IdFilter idFilter;
+    private final LongAdder filterRejections = new LongAdder();
+    private final LongAdder filterFalsePositives = new LongAdder();
+    private Subtree[] subtrees = new Subtree[0];
+    private PriceVector prices = PriceVector.empty();
+    private volatile Snapshot snapshot;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int cursorStamp = ThreadLocalRandom.current().nextInt();
+
+    private Warehouse(String name, WarehouseOptions options) {
+        this.name = name;
+        this.priceScale = options.priceScale();
+        this.fixedPriceScale = options.fixedPriceScale();
+        this.snapshot = new Snapshot(prices, subtrees, priceScale);
+        this.products = switch (options.storage()) {
+            case HEAP -> new HeapProductStore();
+            case OFF_HEAP -> new OffHeapProductStore();
+        };
+        this.names = new NameDictionary(options.storage() == WarehouseOptions.Storage.OFF_HEAP);
+        this.nameIndex = new NameIndex(names);
+        this.trigrams = options.substringIndex() ? new TrigramIndex() : null;
+        this.filterFalsePositiveRate = options.bloomFilterFalsePositiveRate();
+        if (filterFalsePositiveRate > 0)
+            this.idFilter = new IdFilter(INITIAL_FILTER_CAPACITY, filterFalsePositiveRate);
+    }
+
+    public static Warehouse getInstance() {
+        return getInstance(DEFAULT_NAME);
+    }
+
+    public static Warehouse getInstance(String name) {
+        return getInstance(name, WarehouseOptions.DEFAULT);
+    }
+
+    public static Warehouse getInstance(String name, WarehouseOptions options) {
+        return new Warehouse(name, options);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.size() == 0;
+    }
+
+    /**
+     * Returns the products in the order they were added, as an unmodifiable snapshot
+     * taken in constant time. Later changes to the warehouse don't show in it, and
+     * records are only created as they are read.
+     */
+    public List<ProductRecord> getProducts() {
+        Snapshot current = snapshot;
+        return new SnapshotList(current, null, current.size());
+    }
+
+    /**
+     * Returns up to pageSize products in the order they were added, starting where
+     * the cursor points, or at the first product if it's null.
+     * <p>
+     * A cursor is an opaque string from {@link ProductPage#nextCursor()} of this
+     * warehouse. Products are only ever appended, so it stays valid however many
+     * products are added after it, and a page costs as much as its size. Like
+     * {@link #getProducts()} a page is read from a snapshot without locking.
+     */
+    public ProductPage getProductPage(String cursor, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("Page size must be positive.");
+        int from = cursor == null ? 0 : slotOfCursor(cursor);
+        Snapshot current = snapshot;
+        int to = (int) Math.min(current.size(), (long) from + pageSize);
+        List<ProductRecord> page = from >= to ? List.of() : new SnapshotList(current, null, current.size()).subList(from, to);
+        return new ProductPage(page, cursorAt(Math.max(from, to)), to < current.size());
+    }
+
+    /**
+     * Calls the action with a view of each product, in the order they were added,
+     * without creating a record per product. The view is reused, see
+     * {@link ProductView}.
+     * <p>
+     * Like {@link #getProducts()} this walks a snapshot without locking, so products
+     * the action adds or updates aren't visited.
+     */
+    public void forEachProduct(Consumer<? super ProductView> action) {
+        Snapshot current = snapshot;
+        Cursor cursor = new Cursor(current);
+        for (int slot = 0; slot < current.size(); slot++) {
+            cursor.slot = slot;
+            action.accept(cursor);
+        }
+    }
+
+    /**
+     * Returns the product with the id, read from the latest snapshot without locking.
+     */
+    public Optional<ProductRecord> getProductById(UUID uuid) {
+        Snapshot current = snapshot;
+        int slot = slotOf(uuid);
+        return slot < 0 || slot >= current.size() ? Optional.empty() : Optional.of(productAt(slot, current));
+    }
+
+    /**
+     * Adds a product. A product without an id gets a time ordered one from
+     * {@link UuidV7}, and a product without a price costs zero.
+     */
+    public ProductRecord addProduct(UUID uuid, String name, Category category, BigDecimal price) {
+        lock.writeLock().lock();
+        try {
+            int slot = add(uuid, name, category, price);
+            if (trigrams != null)
+                trigrams.add(name, slot);
+            publish();
+            return productAt(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the products in order, like {@link #addProduct(UUID, String, Category, BigDecimal)}
+     * for each of them, but under one lock, building the substring index in parallel
+     * when there is one. If a product can't be added, the ones before it stay added.
+     */
+    public void addProducts(Collection<ProductRecord> records) {
+        if (records == null)
+            throw new IllegalArgumentException("Products can't be null.");
+        lock.writeLock().lock();
+        try {
+            int first = products.size();
+            try {
+                for (ProductRecord record : records) {
+                    if (record == null)
+                        throw new IllegalArgumentException("Product can't be null.");
+                    add(record.uuid(), record.name(), record.category(), record.price());
+                }
+            } finally {
+                if (trigrams != null)
+                    trigrams.addAll(first, products.size(), this::nameAt);
+                publish();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateProductPrice(UUID uuid, BigDecimal price) {
+        if (price == null)
+            price = BigDecimal.ZERO;
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(uuid);
+            if (slot < 0)
+                throw new IllegalArgumentException("Product with that id doesn't exist.");
+            fitPriceScale(price);
+            long units = Prices.toUnits(price, priceScale);
+            long oldUnits = prices.units(slot);
+            prices = prices.set(slot, units, price.scale());
+            changes.mark(slot);
+            Category category = categoryAt(slot);
+            allPrices.replace(slot, oldUnits, units);
+            for (int depth = 0; depth <= category.depth(); depth++)
+                subtrees[category.ancestor(depth).ordinal()].statistics.replace(slot, oldUnits, units);
+            publish();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products whose price was updated, in the order they were first
+     * updated. Costs as much as there are changed products.
+     */
+    public List<ProductRecord> getChangedProducts() {
+        lock.readLock().lock();
+        try {
+            IntList slots = changes.slots();
+            List<ProductRecord> changed = new ArrayList<>(slots.size());
+            for (int i = 0; i < slots.size(); i++)
+                changed.add(productAt(slots.get(i)));
+            return Collections.unmodifiableList(changed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products in the category and all its subcategories, as a snapshot
+     * like {@link #getProducts()}.
+     */
+    public List<ProductRecord> getProductsBy(Category category) {
+        Snapshot current = snapshot;
+        Subtree subtree = current.subtreeOf(category);
+        if (subtree == null)
+            return List.of();
+        return new SnapshotList(current, subtree.slots, subtree.slots.countBelow(current.size()));
+    }
+
+    /**
+     * Returns the products priced from min to max, inclusive, from cheapest to most
+     * expensive. A null bound leaves that end of the range open.
+     */
+    public List<ProductRecord> getProductsByPriceRange(BigDecimal min, BigDecimal max) {
+        return getProductsByPriceRange(min, max, PriceOrder.ASCENDING);
+    }
+
+    /**
+     * Returns the products priced from min to max, inclusive, in the given order.
+     * Products with the same price come in the order they were added. Costs
+     * logarithmic time plus the number of products returned.
+     */
+    public List<ProductRecord> getProductsByPriceRange(BigDecimal min, BigDecimal max, PriceOrder order) {
+        lock.readLock().lock();
+        try {
+            return productsInRange(allPrices, min, max, order);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products in the category and all its subcategories priced from min
+     * to max, inclusive, from cheapest to most expensive.
+     */
+    public List<ProductRecord> getProductsBy(Category category, BigDecimal min, BigDecimal max) {
+        return getProductsBy(category, min, max, PriceOrder.ASCENDING);
+    }
+
+    /**
+     * Like {@link #getProductsByPriceRange(BigDecimal, BigDecimal, PriceOrder)} for
+     * the products in the category and all its subcategories.
+     */
+    public List<ProductRecord> getProductsBy(Category category, BigDecimal min, BigDecimal max, PriceOrder order) {
+        lock.readLock().lock();
+        try {
+            Subtree subtree = existingSubtreeOf(category);
+            return subtree == null ? List.of() : productsInRange(subtree.statistics, min, max, order);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the limit cheapest products in the category and all its subcategories,
+     * cheapest first. Products with the same price come in the order they were
+     * added. Costs logarithmic time plus the number of products returned.
+     */
+    public List<ProductRecord> getCheapestProductsBy(Category category, int limit) {
+        return topProductsBy(category, false, limit);
+    }
+
+    /**
+     * Returns the limit most expensive products in the category and all its
+     * subcategories, most expensive first, like {@link #getCheapestProductsBy(Category, int)}.
+     */
+    public List<ProductRecord> getMostExpensiveProductsBy(Category category, int limit) {
+        return topProductsBy(category, true, limit);
+    }
+
+    private List<ProductRecord> topProductsBy(Category category, boolean descending, int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Limit can't be negative.");
+        lock.readLock().lock();
+        try {
+            Subtree subtree = existingSubtreeOf(category);
+            if (subtree == null)
+                return List.of();
+            return productsByPrice(subtree.statistics, Long.MIN_VALUE, Long.MAX_VALUE, descending, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most limit products whose name starts with the prefix, ignoring case,
+     * sorted by name and then in the order they were added. Costs logarithmic time
+     * plus the number of products returned.
+     */
+    public List<ProductRecord> getProductsByNamePrefix(String prefix, int limit) {
+        if (prefix == null)
+            throw new IllegalArgumentException("Prefix can't be null.");
+        if (limit < 0)
+            throw new IllegalArgumentException("Limit can't be negative.");
+        lock.readLock().lock();
+        try {
+            List<ProductRecord> result = new ArrayList<>(Math.min(limit, 64));
+            nameIndex.forEachWithPrefix(prefix, limit, slot -> result.add(productAt(slot)));
+            return Collections.unmodifiableList(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products whose name contains the text, ignoring case, in the order
+     * they were added.
+     * <p>
+     * With {@link WarehouseOptions#substringIndex()} only the products having every
+     * trigram of the text are checked, otherwise, or for texts shorter than a
+     * trigram, every name is.
+     */
+    public List<ProductRecord> getProductsByNameContaining(String text) {
+        if (text == null)
+            throw new IllegalArgumentException("Text can't be null.");
+        String folded = NameIndex.fold(text);
+        lock.readLock().lock();
+        try {
+            List<ProductRecord> result = new ArrayList<>();
+            if (trigrams != null && folded.length() >= TrigramIndex.TRIGRAM_LENGTH) {
+                for (int slot : trigrams.candidates(folded)) {
+                    if (NameIndex.fold(nameAt(slot)).contains(folded))
+                        result.add(productAt(slot));
+                }
+            } else {
+                for (int slot = 0; slot < products.size(); slot++) {
+                    if (NameIndex.fold(nameAt(slot)).contains(folded))
+                        result.add(productAt(slot));
+                }
+            }
+            return Collections.unmodifiableList(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls the action with a view of each product in the category and all its
+     * subcategories, in the order they were added. Like {@link #getProductsBy(Category)}
+     * this only visits matching products of a snapshot, but it doesn't create any
+     * records.
+     */
+    public void forEachProductBy(Category category, Consumer<? super ProductView> action) {
+        Snapshot current = snapshot;
+        Subtree subtree = current.subtreeOf(category);
+        if (subtree == null)
+            return;
+        Cursor cursor = new Cursor(current);
+        int count = subtree.slots.countBelow(current.size());
+        for (int i = 0; i < count; i++) {
+            cursor.slot = subtree.slots.get(i);
+            action.accept(cursor);
+        }
+    }
+
+    /**
+     * Returns count, total, min, max and mean price of the products in the category
+     * and all its subcategories, or empty if there are none.
+     */
+    public Optional<CategoryStatistics> getStatisticsFor(Category category) {
+        lock.readLock().lock();
+        try {
+            Subtree subtree = existingSubtreeOf(category);
+            return subtree == null ? Optional.empty() : Optional.of(subtree.statistics.snapshot(priceScale));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns how much memory product names use, with the name prefix index. Each
+     * distinct name is stored once, as one byte per character when possible.
+     */
+    public WarehouseMemoryStatistics getMemoryStatistics() {
+        lock.readLock().lock();
+        try {
+            long nameBytes = names.bytes() + 4L * products.size() + nameIndex.bytes();
+            return new WarehouseMemoryStatistics(products.size(), names.size(), nameBytes, names.stringBytes() - nameBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the Bloom filter over product ids and how many lookups of
+     * missing ids by {@link #getProductById(UUID)} and
+     * {@link #updateProductPrice(UUID, BigDecimal)} it answered, or empty if the
+     * warehouse has no filter, see
+     * {@link WarehouseOptions#bloomFilterFalsePositiveRate()}.
+     */
+    public Optional<BloomFilterStatistics> getBloomFilterStatistics() {
+        lock.readLock().lock();
+        try {
+            if (idFilter == null)
+                return Optional.empty();
+            return Optional.of(new BloomFilterStatistics(idFilter.bytes(), idFilter.capacity(), idFilter.hashes(),
+                    filterFalsePositiveRate, filterRejections.sum(), filterFalsePositives.sum()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products grouped by the category they were added with, ordered by
+     * category ordinal.
+     * <p>
+     * The map is an unmodifiable snapshot taken in constant time: later changes to the
+     * warehouse don't show in it, and records are only created as they are read.
+     */
+    public Map<Category, List<ProductRecord>> getProductsGroupedByCategories() {
+        return new GroupedProducts(snapshot);
+    }
+
+    private List<ProductRecord> productsInRange(PriceStatistics prices, BigDecimal min, BigDecimal max, PriceOrder order) {
+        if (order == null)
+            throw new IllegalArgumentException("Price order can't be null.");
+        long low = min == null ? Long.MIN_VALUE : Prices.toBound(min, priceScale, RoundingMode.CEILING);
+        long high = max == null ? Long.MAX_VALUE : Prices.toBound(max, priceScale, RoundingMode.FLOOR);
+        return productsByPrice(prices, low, high, order == PriceOrder.DESCENDING, Integer.MAX_VALUE);
+    }
+
+    private List<ProductRecord> productsByPrice(PriceStatistics prices, long min, long max, boolean descending, int limit) {
+        List<ProductRecord> result = new ArrayList<>(Math.min(limit, 64));
+        prices.forEachInRange(min, max, descending, limit, slot -> result.add(productAt(slot)));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Adds a product to everything but the substring index, without publishing it.
+     */
+    private int add(UUID uuid, String name, Category category, BigDecimal price) {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Product name can't be null or empty.");
+        if (category == null)
+            throw new IllegalArgumentException("Category can't be null.");
+        if (uuid == null)
+            uuid = UuidV7.next();
+        if (price == null)
+            price = BigDecimal.ZERO;
+        fitPriceScale(price);
+        long units = Prices.toUnits(price, priceScale);
+        if (slotOf(uuid, false) >= 0)
+            throw new IllegalArgumentException("Product with that id already exists, use updateProduct for updates.");
+
+        int nameRef = names.add(name);
+        int slot = products.add(uuid, nameRef, category.ordinal());
+        slotsById.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+        addToIdFilter(slot);
+        prices = prices.append(units, price.scale());
+        allPrices.add(slot, units);
+        nameIndex.add(name, nameRef, slot);
+        for (int depth = 0; depth <= category.depth(); depth++)
+            subtreeOf(category.ancestor(depth)).add(slot, units);
+        subtrees[category.ordinal()].ownSlots.add(slot);
+        return slot;
+    }
+
+    private String cursorAt(int slot) {
+        byte[] bytes = ByteBuffer.allocate(CURSOR_BYTES).putInt(cursorStamp).putInt(slot).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private int slotOfCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor isn't valid for this warehouse.", e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length != CURSOR_BYTES || buffer.getInt() != cursorStamp || buffer.getInt(4) < 0)
+            throw new IllegalArgumentException("Cursor isn't valid for this warehouse.");
+        return buffer.getInt(4);
+    }
+
+    /**
+     * Raises the price scale to the decimals of the price if it has more and the
+     * scale isn't fixed, multiplying every stored price to match. Leaves the scale
+     * as it was if the price or any stored price wouldn't fit at the new scale.
+     */
+    private void fitPriceScale(BigDecimal price) {
+        int decimals = Math.min(price.stripTrailingZeros().scale(), WarehouseOptions.MAX_PRICE_SCALE);
+        if (fixedPriceScale || decimals <= priceScale)
+            return;
+        Prices.toUnits(price, decimals);
+        long factor = BigInteger.TEN.pow(decimals - priceScale).longValueExact();
+        if (!allPrices.canMultiply(factor))
+            throw new IllegalArgumentException("Price is out of range.");
+        prices = prices.multiplied(factor);
+        allPrices.multiply(factor);
+        for (Subtree subtree : subtrees) {
+            if (subtree != null)
+                subtree.statistics.multiply(factor);
+        }
+        priceScale = decimals;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(prices, subtrees, priceScale);
+    }
+
+    private int slotOf(UUID uuid) {
+        return slotOf(uuid, true);
+    }
+
+    /**
+     * Returns the slot of the product with the id, or -1. Only lookups a caller asked
+     * for are counted in the filter statistics, not the checks for duplicate ids
+     * when adding.
+     */
+    private int slotOf(UUID uuid, boolean counted) {
+        if (uuid == null)
+            return -1;
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        IdFilter filter = idFilter;
+        if (filter != null && !filter.mightContain(most, least)) {
+            if (counted)
+                filterRejections.increment();
+            return -1;
+        }
+        int slot = slotsById.get(most, least);
+        if (slot < 0 && filter != null && counted)
+            filterFalsePositives.increment();
+        return slot;
+    }
+
+    /**
+     * Adds the id at slot to the filter, first replacing the filter by one twice the
+     * size if it's full. A new filter is only published once it has every id before
+     * slot, as {@link #getProductById(UUID)} reads it without locking.
+     */
+    private void addToIdFilter(int slot) {
+        IdFilter filter = idFilter;
+        if (filter == null)
+            return;
+        if (filter.isFull()) {
+            filter = new IdFilter(filter.capacity() * 2, filterFalsePositiveRate);
+            for (int added = 0; added < slot; added++)
+                filter.add(products.idHigh(added), products.idLow(added));
+            idFilter = filter;
+        }
+        filter.add(products.idHigh(slot), products.idLow(slot));
+    }
+
+    private Category categoryAt(int slot) {
+        return subtrees[products.categoryOrdinal(slot)].category;
+    }
+
+    private Subtree subtreeOf(Category category) {
+        int ordinal = category.ordinal();
+        if (ordinal >= subtrees.length)
+            subtrees = Arrays.copyOf(subtrees, Math.max(ordinal + 1, subtrees.length * 2));
+        Subtree subtree = subtrees[ordinal];
+        if (subtree == null)
+            subtree = subtrees[ordinal] = new Subtree(category);
+        return subtree;
+    }
+
+    private Subtree existingSubtreeOf(Category category) {
+        int ordinal = category.ordinal();
+        return ordinal < subtrees.length ? subtrees[ordinal] : null;
+    }
+
+    /**
+     * The product at slot as it is now, for use under the lock, where the latest
+     * snapshot has every change.
+     */
+    private ProductRecord productAt(int slot) {
+        return productAt(slot, snapshot);
+    }
+
+    private ProductRecord productAt(int slot, Snapshot snapshot) {
+        return new ProductRecord(products.id(slot), nameAt(slot), snapshot.categoryAt(products.categoryOrdinal(slot)),
+                priceAt(slot, snapshot));
+    }
+
+    private String nameAt(int slot) {
+        return names.get(products.nameRef(slot));
+    }
+
+    private BigDecimal priceAt(int slot, Snapshot snapshot) {
+        PriceVector prices = snapshot.prices();
+        return Prices.toBigDecimal(prices.units(slot), snapshot.priceScale(), prices.scale(slot));
+    }
+
+    /**
+     * The order of products listed by price.
+     */
+    public enum PriceOrder {
+        ASCENDING, DESCENDING
+    }
+
+    /**
+     * A {@link ProductView} over one slot of a snapshot at a time.
+     */
+    private final class Cursor implements ProductView {
+        private final Snapshot snapshot;
+        int slot;
+
+        Cursor(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public long uuidMostSignificantBits() {
+            return products.idHigh(slot);
+        }
+
+        @Override
+        public long uuidLeastSignificantBits() {
+            return products.idLow(slot);
+        }
+
+        @Override
+        public long priceInMinorUnits() {
+            return snapshot.prices().units(slot);
+        }
+
+        @Override
+        public int priceScale() {
+            return snapshot.priceScale();
+        }
+
+        @Override
+        public Category category() {
+            return snapshot.categoryAt(products.categoryOrdinal(slot));
+        }
+
+        @Override
+        public String name() {
+            return nameAt(slot);
+        }
+
+        @Override
+        public BigDecimal price() {
+            return priceAt(slot, snapshot);
+        }
+    }
+
+    /**
+     * The state needed to read the warehouse as it was: the prices, which also tell
+     * how many products there were, the scale they are at, and the subtrees, whose slot lists are only read
+     * up to that many products. Taking one copies nothing; the products a snapshot
+     * covers are never written again apart from their prices, which the snapshot has
+     * its own version of.
+     */
+    private record Snapshot(PriceVector prices, Subtree[] subtrees, int priceScale) {
+
+        int size() {
+            return prices.size();
+        }
+
+        Category categoryAt(int ordinal) {
+            return subtrees[ordinal].category;
+        }
+
+        Subtree subtreeOf(Category category) {
+            int ordinal = category.ordinal();
+            Subtree subtree = ordinal < subtrees.length ? subtrees[ordinal] : null;
+            return subtree != null && subtree.category.equals(category) ? subtree : null;
+        }
+    }
+
+    /**
+     * Products of a snapshot at the given slots, or at all slots if there are none,
+     * created as they are read.
+     */
+    private final class SnapshotList extends AbstractList<ProductRecord> implements RandomAccess {
+        private final Snapshot snapshot;
+        private final IntList slots;
+        private final int size;
+
+        SnapshotList(Snapshot snapshot, IntList slots, int size) {
+            this.snapshot = snapshot;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        @Override
+        public ProductRecord get(int index) {
+            Objects.checkIndex(index, size);
+            return productAt(slots == null ? index : slots.get(index), snapshot);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The products of a snapshot grouped by the category they were added with. A
+     * category is only included if it had products when the snapshot was taken.
+     */
+    private final class GroupedProducts extends AbstractMap<Category, List<ProductRecord>> {
+        private final Snapshot snapshot;
+        private int size = -1;
+
+        GroupedProducts(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public List<ProductRecord> get(Object key) {
+            return key instanceof Category category ? group(snapshot.subtreeOf(category)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                int count = 0;
+                for (Subtree subtree : snapshot.subtrees()) {
+                    if (countOf(subtree) > 0)
+                        count++;
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Category, List<ProductRecord>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Category, List<ProductRecord>>> iterator() {
+                    return new Iterator<>() {
+                        private int ordinal = nextGroup(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return ordinal < snapshot.subtrees().length;
+                        }
+
+                        @Override
+                        public Entry<Category, List<ProductRecord>> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Subtree subtree = snapshot.subtrees()[ordinal];
+                            ordinal = nextGroup(ordinal + 1);
+                            return Map.entry(subtree.category, group(subtree));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return GroupedProducts.this.size();
+                }
+            };
+        }
+
+        private int nextGroup(int ordinal) {
+            Subtree[] subtrees = snapshot.subtrees();
+            while (ordinal < subtrees.length && countOf(subtrees[ordinal]) == 0)
+                ordinal++;
+            return ordinal;
+        }
+
+        private int countOf(Subtree subtree) {
+            return subtree == null ? 0 : subtree.ownSlots.countBelow(snapshot.size());
+        }
+
+        private List<ProductRecord> group(Subtree subtree) {
+            int count = countOf(subtree);
+            return count == 0 ? null : new SnapshotList(snapshot, subtree.ownSlots, count);
+        }
+    }
+
+    /**
+     * The products of a category and all its subcategories, and separately the ones
+     * added with the category itself.
+     */
+    private static final class Subtree {
+        final Category category;
+        final IntList slots = new IntList();
+        final IntList ownSlots = new IntList();
+        final PriceStatistics statistics = new PriceStatistics();
+
+        Subtree(Category category) {
+            this.category = category;
+        }
+
+        void add(int slot, long price) {
+            slots.add(slot);
+            statistics.add(slot, price);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.warehouse;
+
+/**
+ * How much memory a {@link Warehouse} uses for product names.
+ *
+ * @param products        the number of products
+ * @param distinctNames   the number of distinct product names
+ * @param nameBytes       bytes used for names, on the heap or in direct memory with
+ *                        {@link WarehouseOptions.Storage#OFF_HEAP}, including each
+ *                        product's reference and the index for finding products by
+ *                        name prefix
+ * @param nameBytesSaved  estimated bytes saved compared to one String per product
+ */
+public record WarehouseMemoryStatistics(int products, int distinctNames, long nameBytes, long nameBytesSaved) {
+
+    public double nameBytesSavedPerProduct() {
+        return products == 0 ? 0 : (double) nameBytesSaved / products;
+    }
+}
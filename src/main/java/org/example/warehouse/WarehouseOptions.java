@@ -0,0 +1,75 @@
+package org.example.warehouse;
+
+/**
+ * Settings for a {@link Warehouse}.
+ *
+ * @param priceScale     the number of decimals prices are stored with; prices are
+ *                       kept as whole minor units at this scale, so 2 stores cents
+ * @param fixedPriceScale whether prices with more decimals than the price scale are
+ *                       rejected; otherwise the warehouse raises its scale, up to
+ *                       {@value #MAX_PRICE_SCALE}, to keep such prices exactly
+ * @param storage        where product data is kept
+ * @param substringIndex whether to keep an index of name trigrams, which makes
+ *                       finding products by a part of their name fast at the cost
+ *                       of memory and slower adds
+ * @param bloomFilterFalsePositiveRate
+ *                       the false positive rate of a Bloom filter over product ids
+ *                       that lets lookups of missing ids skip the id index, or 0 for
+ *                       no filter; a lower rate uses more memory, about 12 bits per
+ *                       product at 0.01
+ */
+public record WarehouseOptions(int priceScale, boolean fixedPriceScale, Storage storage, boolean substringIndex,
+                               double bloomFilterFalsePositiveRate) {
+
+    public static final int MAX_PRICE_SCALE = 18;
+
+    /**
+     * Options that accept any price: the price scale starts at 2 and grows when a
+     * price has more decimals.
+     */
+    public static final WarehouseOptions DEFAULT = new WarehouseOptions(2, false, Storage.HEAP, false, 0);
+
+    public enum Storage {
+        /**
+         * Products are kept in arrays on the Java heap.
+         */
+        HEAP,
+        /**
+         * Product ids, categories and the text of names are kept in direct memory
+         * outside the Java heap, which makes the heap smaller and reading a product
+         * somewhat slower. Prices, the price and name indexes and the category lists
+         * stay on the heap, a few dozen bytes per product, so a large catalog still
+         * adds to garbage collection work, only less of it.
+         */
+        OFF_HEAP
+    }
+
+    public WarehouseOptions {
+        if (priceScale < 0 || priceScale > MAX_PRICE_SCALE)
+            throw new IllegalArgumentException("Price scale must be between 0 and " + MAX_PRICE_SCALE + ".");
+        if (storage == null)
+            throw new IllegalArgumentException("Storage can't be null.");
+        if (!(bloomFilterFalsePositiveRate >= 0 && bloomFilterFalsePositiveRate < 1))
+            throw new IllegalArgumentException("Bloom filter false positive rate must be at least 0 and less than 1.");
+    }
+
+    /**
+     * Fixes the price scale, so prices with more decimals are rejected instead of
+     * raising it.
+     */
+    public WarehouseOptions withPriceScale(int priceScale) {
+        return new WarehouseOptions(priceScale, true, storage, substringIndex, bloomFilterFalsePositiveRate);
+    }
+
+    public WarehouseOptions withStorage(Storage storage) {
+        return new WarehouseOptions(priceScale, fixedPriceScale, storage, substringIndex, bloomFilterFalsePositiveRate);
+    }
+
+    public WarehouseOptions withSubstringIndex(boolean substringIndex) {
+        return new WarehouseOptions(priceScale, fixedPriceScale, storage, substringIndex, bloomFilterFalsePositiveRate);
+    }
+
+    public WarehouseOptions withBloomFilterFalsePositiveRate(double bloomFilterFalsePositiveRate) {
+        return new WarehouseOptions(priceScale, fixedPriceScale, storage, substringIndex, bloomFilterFalsePositiveRate);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.example.warehouse.Category;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures hit latency of {@link Category#of(String)} while an increasing number of
+ * threads look up the same, already interned, categories.
+ * <p>
+ * Run with {@code mvn test -Dtest=CategoryContentionBenchmark -Dbenchmark=true}.
+ */
+@Tag("benchmark")
+@DisplayName("Category.of contention benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CategoryContentionBenchmark {
+
+    private static final int CATEGORIES = 256;
+    private static final int WARMUP_ITERATIONS = 500_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Test
+    @DisplayName("hit latency per thread count")
+    void hitLatency() throws Exception {
+        String[] names = new String[CATEGORIES];
+        for (int i = 0; i < CATEGORIES; i++) {
+            names[i] = "category" + i;
+            Category.of(names[i]);
+        }
+
+        System.out.printf("%8s %12s%n", "threads", "ns/op");
+        for (int threads : THREADS) {
+            double nanosPerOp = run(names, threads);
+            System.out.printf("%8d %12.2f%n", threads, nanosPerOp);
+        }
+    }
+
+    private static double run(String[] names, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] results = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                results[t] = executor.submit(() -> {
+                    lookups(names, offset, WARMUP_ITERATIONS);
+                    start.await();
+                    long begin = System.nanoTime();
+                    int sink = lookups(names, offset, ITERATIONS);
+                    return new long[]{System.nanoTime() - begin, sink};
+                });
+            }
+            start.countDown();
+            long total = 0;
+            for (Future<?> result : results)
+                total += ((long[]) result.get())[0];
+            return (double) total / threads / ITERATIONS;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int lookups(String[] names, int offset, int iterations) {
+        int sink = 0;
+        for (int i = 0; i < iterations; i++)
+            sink += Category.of(names[(i + offset) & (CATEGORIES - 1)]).getName().length();
+        return sink;
+    }
+}
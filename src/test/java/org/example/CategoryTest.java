@@ -1,9 +1,20 @@
 package org.example;
 
 import org.example.warehouse.Category;
+import org.example.warehouse.CategoryInternStatistics;
 import org.junit.jupiter.api.*;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -55,4 +66,128 @@ public class CategoryTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Category name can't be null");
     }
+
+    @Test
+    @DisplayName("is same instance when created concurrently")
+    @Order(6)
+    void shouldBeOfSameInstanceWhenCreatedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Category>> tasks = IntStream.range(0, 64)
+                    .<Callable<Category>>mapToObj(i -> () -> Category.of(i % 2 == 0 ? "concurrent" : "Concurrent"))
+                    .toList();
+            List<Future<Category>> results = executor.invokeAll(tasks);
+            Category expected = Category.of("Concurrent");
+            for (Future<Category> result : results)
+                assertThat(result.get()).isSameAs(expected);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("gets a stable ordinal when created")
+    @Order(7)
+    void shouldGetStableOrdinalWhenCreated() {
+        Category first = Category.of("First ordinal");
+        Category second = Category.of("Second ordinal");
+        assertThat(second.ordinal()).isGreaterThan(first.ordinal());
+        assertThat(Category.of("first ordinal").ordinal()).isEqualTo(first.ordinal());
+    }
+
+    @Test
+    @DisplayName("is same instance when looked up from a CharSequence")
+    @Order(8)
+    void shouldBeOfSameInstanceForCharSequence() {
+        Category category = Category.of("Vegetables");
+        assertThat(Category.of(new StringBuilder("vegetables"))).isSameAs(category);
+    }
+
+    @Test
+    @DisplayName("is same instance when looked up from UTF-8 bytes")
+    @Order(9)
+    void shouldBeOfSameInstanceForUtf8Bytes() {
+        Category category = Category.of("Ägg");
+        byte[] line = "12;ägg;4.50".getBytes(StandardCharsets.UTF_8);
+        assertThat(Category.of(line, 3, 4)).isSameAs(category);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(line.length).put(line);
+        assertThat(Category.of(buffer, 3, 4)).isSameAs(category);
+    }
+
+    @Test
+    @DisplayName("decodes new categories from UTF-8 bytes")
+    @Order(10)
+    void shouldDecodeNewCategoryFromUtf8Bytes() {
+        byte[] name = "ostar från Skåne".getBytes(StandardCharsets.UTF_8);
+        assertThat(Category.of(name, 0, name.length).getName()).isEqualTo("Ostar från Skåne");
+    }
+
+    @Test
+    @DisplayName("decodes malformed UTF-8 bytes like a String does")
+    @Order(11)
+    void shouldDecodeMalformedUtf8LikeAString() {
+        byte[] overlongSlash = {'a', (byte) 0xC0, (byte) 0xAF, 'b'};
+        Category category = Category.of(overlongSlash, 0, overlongSlash.length);
+        assertThat(category).isSameAs(Category.of(new String(overlongSlash, StandardCharsets.UTF_8)));
+        assertThat(category.getParent()).isEmpty();
+
+        byte[] surrogate = {'x', (byte) 0xED, (byte) 0xA0, (byte) 0x80};
+        assertThat(Category.of(surrogate, 0, surrogate.length))
+                .isSameAs(Category.of(new String(surrogate, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("creates parent categories from a path")
+    @Order(12)
+    void shouldCreateParentCategoriesFromPath() {
+        Category hard = Category.of("dairy/cheese/hard");
+        Category cheese = Category.of("Dairy/Cheese");
+        assertThat(hard.getName()).isEqualTo("Dairy/Cheese/Hard");
+        assertThat(hard.getParent()).containsSame(cheese);
+        assertThat(cheese.getParent()).containsSame(Category.of("Dairy"));
+        assertThat(Category.of("Dairy").getParent()).isEmpty();
+        assertThat(hard.isWithin(Category.of("Dairy"))).isTrue();
+        assertThat(hard.isWithin(hard)).isTrue();
+        assertThat(cheese.isWithin(hard)).isFalse();
+        assertThat(hard.isWithin(Category.of("Fruit"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("of throws IllegalArgumentException for empty path segments")
+    @Order(13)
+    void ofThrowsIllegalArgumentExceptionForEmptyPathSegments() {
+        assertThatThrownBy(() -> Category.of("Dairy//Cheese"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Category name can't have empty path segments");
+    }
+
+    @Test
+    @DisplayName("is same instance before and after freezing")
+    @Order(14)
+    void shouldBeOfSameInstanceAfterFreezing() {
+        Category frozen = Category.of("Frozen");
+        Category.freeze();
+        Category created = Category.of("Created after freeze");
+        assertThat(Category.of("frozen")).isSameAs(frozen);
+        assertThat(Category.of("created after freeze")).isSameAs(created);
+    }
+
+    @Test
+    @DisplayName("counts hits, misses and capitalizations")
+    @Order(15)
+    void shouldCountHitsMissesAndCapitalizations() throws Exception {
+        CategoryInternStatistics before = Category.internStatistics();
+        Category.of("counted");
+        Category.of("Counted");
+        Category.of("counted");
+        CategoryInternStatistics after = Category.internStatistics();
+
+        assertThat(after.misses() - before.misses()).isEqualTo(1);
+        assertThat(after.capitalizations() - before.capitalizations()).isEqualTo(1);
+        assertThat(after.hits() + after.frozenHits() - before.hits() - before.frozenHits()).isEqualTo(2);
+        assertThat(after.size()).isEqualTo(before.size() + 1);
+        assertThat(ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(Category.MBEAN_NAME), "Size")).isEqualTo(after.size());
+    }
 }
@@ -1,16 +1,21 @@
 package org.example;
 
 import org.example.warehouse.Category;
+import org.example.warehouse.ProductPage;
 import org.example.warehouse.ProductRecord;
 import org.example.warehouse.Warehouse;
+import org.example.warehouse.WarehouseOptions;
 import org.junit.jupiter.api.*;
 
 import java.lang.reflect.Constructor;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -65,6 +70,151 @@ class WarehouseTest {
         assertThat(warehouse1).isSameAs(warehouse2);
     }
 
+    @Test
+    @DisplayName("keeps the scale prices were given with")
+    @Order(5)
+    @Tag("basic")
+    void keepsScaleOfPrices() {
+        Warehouse warehouse = Warehouse.getInstance("Scaled", WarehouseOptions.DEFAULT.withPriceScale(3));
+        ProductRecord product = warehouse.addProduct(UUID.randomUUID(), "Saffron", Category.of("Spices"), new BigDecimal("12.5"));
+        assertThat(product.price()).isEqualTo(new BigDecimal("12.5"));
+        warehouse.updateProductPrice(product.uuid(), new BigDecimal("12.75000"));
+        assertThat(warehouse.getProductById(product.uuid())).get()
+                .hasFieldOrPropertyWithValue("price", new BigDecimal("12.75000"));
+        assertThatThrownBy(() -> warehouse.updateProductPrice(product.uuid(), new BigDecimal("12.5001")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Price can't have more than 3 decimals.");
+    }
+
+    @Test
+    @DisplayName("raises its price scale for prices with more decimals")
+    @Order(6)
+    @Tag("basic")
+    void raisesPriceScaleForPricesWithMoreDecimals() {
+        Warehouse warehouse = Warehouse.getInstance("Rescaled");
+        ProductRecord milk = warehouse.addProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), new BigDecimal("9.99"));
+        ProductRecord cheese = warehouse.addProduct(UUID.randomUUID(), "Cheese", Category.of("Dairy"), new BigDecimal("25"));
+        List<ProductRecord> before = warehouse.getProducts();
+
+        ProductRecord fuel = warehouse.addProduct(UUID.randomUUID(), "Fuel", Category.of("Fuel"), new BigDecimal("1.999"));
+        warehouse.updateProductPrice(cheese.uuid(), new BigDecimal("24.9999"));
+
+        assertThat(fuel.price()).isEqualTo(new BigDecimal("1.999"));
+        assertThat(before).extracting(ProductRecord::price).containsExactly(new BigDecimal("9.99"), new BigDecimal("25"));
+        assertThat(warehouse.getProductsByPriceRange(new BigDecimal("1.9991"), new BigDecimal("24.9999")))
+                .extracting(ProductRecord::name).containsExactly("Milk", "Cheese");
+        assertThat(warehouse.getStatisticsFor(Category.of("Dairy"))).get()
+                .hasFieldOrPropertyWithValue("total", new BigDecimal("34.9899"))
+                .hasFieldOrPropertyWithValue("max", new BigDecimal("24.9999"));
+        long[] total = {0};
+        warehouse.forEachProduct(product -> {
+            assertThat(product.priceScale()).isEqualTo(4);
+            total[0] += product.priceInMinorUnits();
+        });
+        assertThat(total[0]).isEqualTo(99_900 + 249_999 + 19_990);
+        assertThat(warehouse.getProductById(milk.uuid())).get()
+                .hasFieldOrPropertyWithValue("price", new BigDecimal("9.99"));
+    }
+
+    @Test
+    @DisplayName("can keep products off heap")
+    @Order(7)
+    @Tag("basic")
+    void canKeepProductsOffHeap() {
+        Warehouse warehouse = Warehouse.getInstance("Off heap", WarehouseOptions.DEFAULT.withStorage(WarehouseOptions.Storage.OFF_HEAP));
+        ProductRecord milk = warehouse.addProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), BigDecimal.valueOf(999, 2));
+        warehouse.updateProductPrice(milk.uuid(), BigDecimal.valueOf(1099, 2));
+        assertThat(warehouse.getProductById(milk.uuid())).get()
+                .hasFieldOrPropertyWithValue("name", "Milk")
+                .hasFieldOrPropertyWithValue("category", Category.of("Dairy"))
+                .hasFieldOrPropertyWithValue("price", BigDecimal.valueOf(1099, 2));
+    }
+
+    @Test
+    @DisplayName("hands out snapshots that can be read while products are added")
+    @Order(8)
+    void snapshotsCanBeReadWhileProductsAreAdded() throws Exception {
+        Warehouse warehouse = Warehouse.getInstance("Snapshots", WarehouseOptions.DEFAULT.withBloomFilterFalsePositiveRate(0.01));
+        List<Thread> readers = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        List<ProductRecord> products = warehouse.getProducts();
+                        int size = products.size();
+                        for (ProductRecord product : products)
+                            assertThat(product.price()).isEqualByComparingTo(BigDecimal.valueOf(product.name().length()));
+                        assertThat(products).hasSize(size);
+                        if (size > 0)
+                            assertThat(warehouse.getProductById(products.get(size - 1).uuid())).contains(products.get(size - 1));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int i = 0; i < 20_000; i++) {
+            String name = "x".repeat(1 + i % 10);
+            warehouse.addProduct(null, name, Category.of("Snapshot/" + i % 7), BigDecimal.valueOf(name.length()));
+        }
+        for (Thread reader : readers)
+            reader.join();
+
+        assertThat(failures).isEmpty();
+        assertThat(warehouse.getProducts()).hasSize(20_000);
+    }
+
+    @Test
+    @DisplayName("finds products by any part of their name")
+    @Order(9)
+    void findsProductsByAnyPartOfTheirName() {
+        Warehouse warehouse = Warehouse.getInstance("Substrings", WarehouseOptions.DEFAULT.withSubstringIndex(true));
+        List<ProductRecord> products = List.of(
+                new ProductRecord(UUID.randomUUID(), "Goat Cheese Log", Category.of("Dairy"), BigDecimal.TEN),
+                new ProductRecord(UUID.randomUUID(), "Cheddar", Category.of("Dairy"), BigDecimal.TEN),
+                new ProductRecord(UUID.randomUUID(), "Cheese cake", Category.of("Bakery"), BigDecimal.TEN));
+        warehouse.addProducts(products);
+        warehouse.addProduct(null, "Blue cheese", Category.of("Dairy"), BigDecimal.ONE);
+
+        assertThat(warehouse.getProductsByNameContaining("CHEESE")).extracting(ProductRecord::name)
+                .containsExactly("Goat Cheese Log", "Cheese cake", "Blue cheese");
+        assertThat(warehouse.getProductsByNameContaining("ch")).hasSize(4);
+        assertThat(warehouse.getProductsByNameContaining("cheese log")).containsExactly(products.get(0));
+        assertThat(Warehouse.getInstance("Without index")).satisfies(unindexed -> {
+            unindexed.addProducts(products);
+            assertThat(unindexed.getProductsByNameContaining("cheese")).containsExactly(products.get(0), products.get(2));
+        });
+    }
+
+    @Test
+    @DisplayName("can reject missing ids with a Bloom filter")
+    @Order(10)
+    void canRejectMissingIdsWithABloomFilter() {
+        Warehouse warehouse = Warehouse.getInstance("Filtered", WarehouseOptions.DEFAULT.withBloomFilterFalsePositiveRate(0.01));
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++)
+            ids.add(warehouse.addProduct(null, "Product " + i, Category.of("Filtered"), BigDecimal.ONE).uuid());
+        for (UUID id : ids)
+            assertThat(warehouse.getProductById(id)).isNotEmpty();
+        for (int i = 0; i < 1_000; i++)
+            assertThat(warehouse.getProductById(UUID.randomUUID())).isEmpty();
+        assertThatThrownBy(() -> warehouse.updateProductPrice(UUID.randomUUID(), BigDecimal.TEN))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(warehouse.getBloomFilterStatistics()).get().satisfies(statistics -> {
+            assertThat(statistics.capacity()).isGreaterThanOrEqualTo(5_000);
+            assertThat(statistics.bytes()).isPositive();
+            assertThat(statistics.rejected() + statistics.falsePositives()).isEqualTo(1_001);
+            assertThat(statistics.observedFalsePositiveRate()).isLessThan(0.05);
+        });
+        assertThat(Warehouse.getInstance().getBloomFilterStatistics()).isEmpty();
+        assertThatThrownBy(() -> WarehouseOptions.DEFAULT.withBloomFilterFalsePositiveRate(1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Nested
     @DisplayName("when new")
     class WhenNew {
@@ -138,6 +288,19 @@ class WarehouseTest {
             assertThat(productRecord.uuid()).isNotNull();
         }
 
+        @Test
+        @DisplayName("records without an id can be compared and hashed")
+        void recordsWithoutAnIdCanBeComparedAndHashed() {
+            var record = new ProductRecord(null, "Test", Category.of("Test"), BigDecimal.ONE);
+            var other = new ProductRecord(null, "Other", Category.of("Test"), BigDecimal.TEN);
+            assertThat(Set.of(record, other)).hasSize(2)
+                    .contains(new ProductRecord(null, "Test", Category.of("Test"), BigDecimal.ONE))
+                    .doesNotContain(new ProductRecord(null, "Test", Category.of("Test"), BigDecimal.TEN));
+            assertThat(record).isNotEqualTo(warehouse.getProducts().get(0));
+            warehouse.addProducts(Set.of(record, other));
+            assertThat(warehouse.getProducts()).hasSize(3).allMatch(product -> product.uuid() != null);
+        }
+
         @Test
         @DisplayName("sets price to 0 if null")
         void setsPriceTo0IfNull() {
@@ -199,6 +362,37 @@ class WarehouseTest {
             assertThat(warehouse.getProducts()).isEqualTo(addedProducts);
         }
 
+        @Test
+        @DisplayName("visits all products through a view")
+        void visitsAllProductsThroughAView() {
+            List<ProductRecord> visited = new ArrayList<>();
+            long[] total = {0};
+            warehouse.forEachProduct(product -> {
+                visited.add(product.toRecord());
+                total[0] += product.priceInMinorUnits();
+            });
+            assertThat(visited).isEqualTo(addedProducts);
+            assertThat(total[0]).isEqualTo(999 + 290 + 1567);
+        }
+
+        @Test
+        @DisplayName("visits only the products there were when the walk started")
+        void visitsOnlyProductsThereWereWhenTheWalkStarted() {
+            List<String> visited = new ArrayList<>();
+            warehouse.forEachProductBy(Category.of("Meat"), product -> {
+                visited.add(product.name());
+                warehouse.addProduct(null, "Ham", Category.of("Meat"), BigDecimal.ONE);
+            });
+            warehouse.forEachProduct(product -> {
+                visited.add(product.name());
+                warehouse.updateProductPrice(product.uuid(), BigDecimal.TEN);
+                warehouse.addProduct(null, "Salami", Category.of("Meat"), BigDecimal.ONE);
+            });
+
+            assertThat(visited).containsExactly("Bacon", "Milk", "Apple", "Bacon", "Ham");
+            assertThat(warehouse.getProducts()).hasSize(8);
+        }
+
         @Test
         @DisplayName("changing a products price should be saved")
         void changingAProductsNameShouldBeSaved() {
@@ -231,6 +425,23 @@ class WarehouseTest {
             assertThat(warehouse.getProductsGroupedByCategories()).isEqualTo(productsOfCategories);
         }
 
+        @Test
+        @DisplayName("grouping is a snapshot that later changes don't affect")
+        void groupingIsASnapshot() {
+            Map<Category, List<ProductRecord>> grouped = warehouse.getProductsGroupedByCategories();
+            warehouse.updateProductPrice(addedProducts.get(2).uuid(), BigDecimal.valueOf(1299, 2));
+            warehouse.addProduct(UUID.randomUUID(), "Steak", Category.of("Meat"), BigDecimal.valueOf(399, 0));
+            warehouse.addProduct(UUID.randomUUID(), "Salmon", Category.of("Fish"), BigDecimal.valueOf(199, 0));
+
+            assertThat(grouped).hasSize(3).doesNotContainKey(Category.of("Fish"));
+            assertThat(grouped.get(Category.of("Meat"))).singleElement()
+                    .hasFieldOrPropertyWithValue("price", BigDecimal.valueOf(1567, 2));
+            assertThat(warehouse.getProductsGroupedByCategories()).hasSize(4);
+            assertThat(warehouse.getProductsGroupedByCategories().get(Category.of("Meat"))).hasSize(2)
+                    .first().hasFieldOrPropertyWithValue("price", BigDecimal.valueOf(1299, 2));
+            assertThatThrownBy(grouped::clear).isInstanceOf(UnsupportedOperationException.class);
+        }
+
         @Test
         @DisplayName("list returned from getProducts should be unmodifiable")
         void listReturnedFromGetProductsShouldBeImmutable() {
@@ -255,6 +466,160 @@ class WarehouseTest {
                     .containsOnly(addedProducts.get(2));
         }
 
+        @Test
+        @DisplayName("find products in subcategories of a category")
+        void findProductsInSubcategories() {
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Brie", Category.of("Dairy/Cheese/Soft"), BigDecimal.valueOf(5900, 2)));
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Cheddar", Category.of("Dairy/Cheese/Hard"), BigDecimal.valueOf(4900, 2)));
+            assertThat(warehouse.getProductsBy(Category.of("Dairy")))
+                    .containsExactly(addedProducts.get(0), addedProducts.get(3), addedProducts.get(4));
+            assertThat(warehouse.getProductsBy(Category.of("Dairy/Cheese")))
+                    .containsExactly(addedProducts.get(3), addedProducts.get(4));
+            assertThat(warehouse.getProductsGroupedByCategories().get(Category.of("Dairy")))
+                    .containsExactly(addedProducts.get(0));
+        }
+
+        @Test
+        @DisplayName("keeps price statistics per category")
+        void keepsPriceStatisticsPerCategory() {
+            UUID steak = warehouse.addProduct(UUID.randomUUID(), "Steak", Category.of("Meat"), BigDecimal.valueOf(399, 0)).uuid();
+            warehouse.addProduct(UUID.randomUUID(), "Sausage", Category.of("Meat"), BigDecimal.valueOf(4500, 2));
+            assertThat(warehouse.getStatisticsFor(Category.of("Meat"))).get()
+                    .satisfies(statistics -> {
+                        assertThat(statistics.count()).isEqualTo(3);
+                        assertThat(statistics.total()).isEqualByComparingTo("459.67");
+                        assertThat(statistics.min()).isEqualByComparingTo("15.67");
+                        assertThat(statistics.max()).isEqualByComparingTo("399");
+                    });
+
+            warehouse.updateProductPrice(steak, BigDecimal.valueOf(1000, 2));
+            assertThat(warehouse.getStatisticsFor(Category.of("Meat"))).get()
+                    .satisfies(statistics -> {
+                        assertThat(statistics.total()).isEqualByComparingTo("70.67");
+                        assertThat(statistics.min()).isEqualByComparingTo("10.00");
+                        assertThat(statistics.max()).isEqualByComparingTo("45.00");
+                    });
+            assertThat(warehouse.getStatisticsFor(Category.of("Fish"))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("keeps the total of prices too large for minor units in a long")
+        void keepsTotalsLargerThanALong() {
+            BigDecimal huge = BigDecimal.valueOf(Long.MAX_VALUE / 100 - 1);
+            UUID first = warehouse.addProduct(UUID.randomUUID(), "Gold", Category.of("Treasure"), huge).uuid();
+            warehouse.addProduct(UUID.randomUUID(), "Platinum", Category.of("Treasure"), huge);
+            assertThat(warehouse.getStatisticsFor(Category.of("Treasure"))).get()
+                    .satisfies(statistics -> {
+                        assertThat(statistics.total()).isEqualByComparingTo(huge.add(huge));
+                        assertThat(statistics.mean()).isEqualByComparingTo(huge.round(MathContext.DECIMAL64));
+                    });
+
+            warehouse.updateProductPrice(first, BigDecimal.ONE);
+            assertThat(warehouse.getStatisticsFor(Category.of("Treasure"))).get()
+                    .satisfies(statistics -> assertThat(statistics.total()).isEqualByComparingTo(huge.add(BigDecimal.ONE)));
+        }
+
+        @Test
+        @DisplayName("stores shared product names once")
+        void storesSharedProductNamesOnce() {
+            for (int i = 0; i < 100; i++)
+                warehouse.addProduct(UUID.randomUUID(), "Milk", Category.of("Dairy"), BigDecimal.valueOf(999, 2));
+            var statistics = warehouse.getMemoryStatistics();
+            assertThat(statistics.products()).isEqualTo(103);
+            assertThat(statistics.distinctNames()).isEqualTo(3);
+            assertThat(statistics.nameBytesSavedPerProduct()).isPositive();
+        }
+
+        @Test
+        @DisplayName("find products of a category with their current price")
+        void findProductsOfCategoryWithCurrentPrice() {
+            warehouse.updateProductPrice(addedProducts.get(2).uuid(), BigDecimal.valueOf(1299, 2));
+            assertThat(warehouse.getProductsBy(Category.of("Meat")))
+                    .singleElement()
+                    .hasFieldOrPropertyWithValue("price", BigDecimal.valueOf(1299, 2));
+
+            List<String> names = new ArrayList<>();
+            warehouse.forEachProductBy(Category.of("Meat"), product -> names.add(product.name()));
+            assertThat(names).containsExactly("Bacon");
+        }
+
+        @Test
+        @DisplayName("find products in a price range, cheapest or most expensive first")
+        void findProductsInAPriceRange() {
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Steak", Category.of("Meat/Beef"), BigDecimal.valueOf(399, 0)));
+            assertThat(warehouse.getProductsByPriceRange(new BigDecimal("2.905"), BigDecimal.valueOf(399)))
+                    .containsExactly(addedProducts.get(0), addedProducts.get(2), addedProducts.get(3));
+            assertThat(warehouse.getProductsByPriceRange(null, new BigDecimal("15.67"), Warehouse.PriceOrder.DESCENDING))
+                    .containsExactly(addedProducts.get(2), addedProducts.get(0), addedProducts.get(1));
+
+            warehouse.updateProductPrice(addedProducts.get(3).uuid(), BigDecimal.valueOf(1, 0));
+            assertThat(warehouse.getProductsByPriceRange(null, null))
+                    .containsExactly(addedProducts.get(3), addedProducts.get(1), addedProducts.get(0), addedProducts.get(2));
+            assertThat(warehouse.getProductsBy(Category.of("Meat"), BigDecimal.ZERO, BigDecimal.TEN, Warehouse.PriceOrder.DESCENDING))
+                    .singleElement()
+                    .hasFieldOrPropertyWithValue("price", BigDecimal.valueOf(1, 0));
+            assertThat(warehouse.getProductsBy(Category.of("Fish"), null, null)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("find products by the start of their name, ignoring case")
+        void findProductsByNamePrefix() {
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "milk chocolate", Category.of("Candy"), BigDecimal.ONE));
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "MILK", Category.of("Dairy"), BigDecimal.ONE));
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Minced meat", Category.of("Meat"), BigDecimal.ONE));
+
+            assertThat(warehouse.getProductsByNamePrefix("mIlK", 10))
+                    .containsExactly(addedProducts.get(0), addedProducts.get(4), addedProducts.get(3));
+            assertThat(warehouse.getProductsByNamePrefix("Mi", 2))
+                    .containsExactly(addedProducts.get(0), addedProducts.get(4));
+            assertThat(warehouse.getProductsByNamePrefix("Milkshake", 10)).isEmpty();
+            assertThatThrownBy(() -> warehouse.getProductsByNamePrefix(null, 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Prefix can't be null.");
+        }
+
+        @Test
+        @DisplayName("find the cheapest and most expensive products of a category")
+        void findCheapestAndMostExpensiveProducts() {
+            Category meat = Category.of("Meat");
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Steak", Category.of("Meat/Beef"), BigDecimal.valueOf(399, 0)));
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Sausage", meat, BigDecimal.valueOf(4500, 2)));
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Ham", meat, BigDecimal.valueOf(4500, 2)));
+
+            assertThat(warehouse.getCheapestProductsBy(meat, 2)).containsExactly(addedProducts.get(2), addedProducts.get(4));
+            assertThat(warehouse.getMostExpensiveProductsBy(meat, 3))
+                    .containsExactly(addedProducts.get(3), addedProducts.get(4), addedProducts.get(5));
+
+            warehouse.updateProductPrice(addedProducts.get(3).uuid(), BigDecimal.ONE);
+            assertThat(warehouse.getCheapestProductsBy(meat, 1)).containsExactly(addedProducts.get(3));
+            assertThat(warehouse.getMostExpensiveProductsBy(meat, 10)).hasSize(4).first().isEqualTo(addedProducts.get(4));
+            assertThat(warehouse.getCheapestProductsBy(Category.of("Fish"), 20)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("pages through products with cursors that see later additions")
+        void pagesThroughProductsWithCursors() {
+            ProductPage first = warehouse.getProductPage(null, 2);
+            assertThat(first.products()).containsExactly(addedProducts.get(0), addedProducts.get(1));
+            assertThat(first.hasMore()).isTrue();
+
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Steak", Category.of("Meat"), BigDecimal.valueOf(399, 0)));
+            ProductPage second = warehouse.getProductPage(first.nextCursor(), 2);
+            assertThat(second.products()).containsExactly(addedProducts.get(2), addedProducts.get(3));
+            assertThat(second.hasMore()).isFalse();
+
+            ProductPage empty = warehouse.getProductPage(second.nextCursor(), 2);
+            assertThat(empty.products()).isEmpty();
+            addedProducts.add(warehouse.addProduct(UUID.randomUUID(), "Salmon", Category.of("Fish"), BigDecimal.valueOf(199, 0)));
+            assertThat(warehouse.getProductPage(empty.nextCursor(), 2).products()).containsExactly(addedProducts.get(4));
+
+            assertThatThrownBy(() -> Warehouse.getInstance().getProductPage(first.nextCursor(), 2))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Cursor isn't valid for this warehouse.");
+            assertThatThrownBy(() -> warehouse.getProductPage("not a cursor!", 2))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
         @Test
         @DisplayName("find multiple products from same category")
         void findMultipleProductsFromSameCategory() {
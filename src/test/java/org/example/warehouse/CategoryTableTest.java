@@ -0,0 +1,71 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A category table")
+class CategoryTableTest {
+
+    @Nested
+    @DisplayName("with weak interning")
+    class Weak {
+
+        CategoryTable table = new CategoryTable(true);
+
+        @Test
+        @DisplayName("returns same instance while it is referenced")
+        void returnsSameInstanceWhileReferenced() {
+            Category category = table.intern("Dairy");
+            collectGarbage();
+            assertThat(table.intern("dairy")).isSameAs(category);
+            assertThat(table.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("reclaims categories that are no longer referenced")
+        void reclaimsUnreferencedCategories() {
+            Category kept = table.intern("Kept");
+            for (int i = 0; i < 1000; i++)
+                table.intern("Transient " + i);
+
+            for (int i = 0; i < 20 && table.size() > 1; i++)
+                collectGarbage();
+
+            assertThat(table.size()).isEqualTo(1);
+            assertThat(table.get("Kept")).isSameAs(kept);
+        }
+
+        @Test
+        @DisplayName("reuses ordinals of reclaimed categories")
+        void reusesOrdinalsOfReclaimedCategories() {
+            for (int i = 0; i < 100; i++)
+                table.intern("Transient " + i);
+            for (int i = 0; i < 20 && table.size() > 0; i++)
+                collectGarbage();
+
+            assertThat(table.intern("New").ordinal()).isLessThan(100);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps categories when interning strongly")
+    void keepsCategoriesWhenStrong() {
+        CategoryTable table = new CategoryTable(false);
+        for (int i = 0; i < 1000; i++)
+            table.intern("Category " + i);
+        collectGarbage();
+        assertThat(table.size()).isEqualTo(1000);
+    }
+
+    private static void collectGarbage() {
+        System.gc();
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
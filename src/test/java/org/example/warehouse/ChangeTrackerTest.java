@@ -0,0 +1,34 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A change tracker")
+class ChangeTrackerTest {
+
+    @Test
+    @DisplayName("lists each changed slot once, in the order it was first changed")
+    void listsEachChangedSlotOnceInOrder() {
+        ChangeTracker changes = new ChangeTracker();
+
+        assertThat(changes.mark(1_000_000)).isTrue();
+        assertThat(changes.mark(3)).isTrue();
+        assertThat(changes.mark(1_000_000)).isFalse();
+        assertThat(changes.mark(64)).isTrue();
+        assertThat(changes.mark(3)).isFalse();
+
+        assertThat(slotsOf(changes)).containsExactly(1_000_000, 3, 64);
+    }
+
+    private static List<Integer> slotsOf(ChangeTracker changes) {
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < changes.slots().size(); i++)
+            slots.add(changes.slots().get(i));
+        return slots;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A frozen category table")
+class FrozenCategoryTableTest {
+
+    @Test
+    @DisplayName("finds every frozen category")
+    void findsEveryFrozenCategory() {
+        CategoryTable table = new CategoryTable(false);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            categories.add(table.intern("Category " + i));
+
+        FrozenCategoryTable frozen = new FrozenCategoryTable(table.categories());
+
+        assertThat(frozen.size()).isEqualTo(5000);
+        for (Category category : categories) {
+            String name = category.getName().toLowerCase();
+            assertThat(frozen.get(name, CategoryTable.hash(name))).isSameAs(category);
+        }
+    }
+
+    @Test
+    @DisplayName("misses names that weren't frozen")
+    void missesNamesThatWereNotFrozen() {
+        CategoryTable table = new CategoryTable(false);
+        for (int i = 0; i < 100; i++)
+            table.intern("Category " + i);
+
+        FrozenCategoryTable frozen = new FrozenCategoryTable(table.categories());
+
+        assertThat(frozen.get("Category 100", CategoryTable.hash("Category 100"))).isNull();
+        assertThat(frozen.get("", CategoryTable.hash(""))).isNull();
+    }
+
+    @Test
+    @DisplayName("keeps one of the categories with the same hash")
+    void keepsOneOfCategoriesWithSameHash() {
+        CategoryTable table = new CategoryTable(false);
+        Category aa = table.intern("Aa");
+        Category bb = table.intern("BB");
+
+        FrozenCategoryTable frozen = new FrozenCategoryTable(table.categories());
+
+        assertThat(frozen.size()).isEqualTo(1);
+        assertThat(frozen.get("Aa", aa.hash)).isSameAs(aa);
+        assertThat(frozen.get("BB", bb.hash)).isNull();
+    }
+}
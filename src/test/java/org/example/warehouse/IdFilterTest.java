@@ -0,0 +1,36 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("An id filter")
+class IdFilterTest {
+
+    @Test
+    @DisplayName("contains every added id and rejects most others")
+    void containsAddedIdsAndRejectsMostOthers() {
+        IdFilter filter = new IdFilter(100_000, 0.01);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.add(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        assertThat(filter.isFull()).isTrue();
+        assertThat(ids).allMatch(id -> filter.mightContain(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = UUID.randomUUID();
+            if (filter.mightContain(id.getMostSignificantBits(), id.getLeastSignificantBits()))
+                falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A name dictionary")
+class NameDictionaryTest {
+
+    @Test
+    @DisplayName("stores each distinct name once")
+    void storesEachDistinctNameOnce() {
+        NameDictionary names = new NameDictionary();
+        int milk = names.add("Milk");
+        int oatMilk = names.add("Oat milk");
+
+        assertThat(names.add("Milk")).isEqualTo(milk);
+        assertThat(names.size()).isEqualTo(2);
+        assertThat(names.get(milk)).isEqualTo("Milk");
+        assertThat(names.get(oatMilk)).isEqualTo("Oat milk");
+    }
+
+    @Test
+    @DisplayName("decodes Latin-1 and other names")
+    void decodesLatin1AndOtherNames() {
+        NameDictionary names = new NameDictionary();
+        int cheese = names.add("Smörgåsost");
+        int tea = names.add("Matcha 抹茶");
+        int empty = names.add("");
+
+        assertThat(names.get(cheese)).isEqualTo("Smörgåsost");
+        assertThat(names.get(tea)).isEqualTo("Matcha 抹茶");
+        assertThat(names.get(empty)).isEmpty();
+        assertThat(names.add("Matcha 抹茶")).isEqualTo(tea);
+    }
+
+    @Test
+    @DisplayName("reads names back the same from direct memory")
+    void readsNamesBackTheSameFromDirectMemory() {
+        NameDictionary names = new NameDictionary(true);
+        int cheese = names.add("Smörgåsost");
+        int tea = names.add("Matcha 抹茶");
+
+        assertThat(names.get(cheese)).isEqualTo("Smörgåsost");
+        assertThat(names.get(tea)).isEqualTo("Matcha 抹茶");
+        assertThat(names.add("Smörgåsost")).isEqualTo(cheese);
+        assertThat(names.compareFolded(tea, "matcha", true)).isZero();
+    }
+
+    @Test
+    @DisplayName("keeps names with unpaired surrogates as they were")
+    void keepsNamesWithUnpairedSurrogates() {
+        NameDictionary names = new NameDictionary();
+        int broken = names.add("a\uD800b");
+        int emoji = names.add("Tea \uD83C\uDF75");
+        int reversed = names.add("\uDF75\uD83C");
+
+        assertThat(names.get(broken)).isEqualTo("a\uD800b");
+        assertThat(names.get(emoji)).isEqualTo("Tea \uD83C\uDF75");
+        assertThat(names.get(reversed)).isEqualTo("\uDF75\uD83C");
+        assertThat(names.add("a\uD800b")).isEqualTo(broken);
+        assertThat(names.add("a\uD801b")).isNotEqualTo(broken);
+        assertThat(names.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("keeps names across chunks")
+    void keepsNamesAcrossChunks() {
+        NameDictionary names = new NameDictionary();
+        String long1 = "x".repeat(200_000);
+        int first = names.add("First");
+        int big = names.add(long1);
+        int[] refs = new int[20_000];
+        for (int i = 0; i < refs.length; i++)
+            refs[i] = names.add("Product " + i);
+
+        assertThat(names.get(first)).isEqualTo("First");
+        assertThat(names.get(big)).isEqualTo(long1);
+        for (int i = 0; i < refs.length; i += 101)
+            assertThat(names.get(refs[i])).isEqualTo("Product " + i);
+    }
+}
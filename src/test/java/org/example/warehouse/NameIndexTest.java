@@ -0,0 +1,70 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A name index")
+class NameIndexTest {
+
+    @Test
+    @DisplayName("lists names that differ in case together, in the order they were added")
+    void listsNamesThatDifferInCaseTogether() {
+        NameDictionary names = new NameDictionary();
+        NameIndex index = new NameIndex(names);
+        String[] added = {"Milk", "Mint", "MILK", "milk shake", "Milk", "Ägg", "äGG"};
+        for (int slot = 0; slot < added.length; slot++)
+            index.add(added[slot], names.add(added[slot]), slot);
+
+        assertThat(prefixed(index, "milk", 10)).containsExactly(0, 2, 4, 3);
+        assertThat(prefixed(index, "M", 3)).containsExactly(0, 2, 4);
+        assertThat(prefixed(index, "äg", 10)).containsExactly(5, 6);
+        assertThat(prefixed(index, "n", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("finds the same products as sorting every name")
+    void findsTheSameProductsAsSortingEveryName() {
+        NameDictionary names = new NameDictionary();
+        NameIndex index = new NameIndex(names);
+        Random random = new Random(42);
+        List<String> added = new ArrayList<>();
+        for (int slot = 0; slot < 20_000; slot++) {
+            String name = randomName(random);
+            added.add(name);
+            index.add(name, names.add(name), slot);
+        }
+
+        for (String prefix : List.of("", "a", "Ab", "bä", "抗", "zz", "ab抗")) {
+            String key = NameIndex.fold(prefix);
+            List<Integer> expected = IntStream.range(0, added.size()).boxed()
+                    .filter(slot -> NameIndex.fold(added.get(slot)).startsWith(key))
+                    .sorted(Comparator.comparing((Integer slot) -> NameIndex.fold(added.get(slot))))
+                    .limit(500)
+                    .toList();
+            assertThat(prefixed(index, prefix, 500)).as(prefix).isEqualTo(expected);
+        }
+        assertThat(index.bytes()).isLessThan(32L * added.size());
+    }
+
+    private static List<Integer> prefixed(NameIndex index, String prefix, int limit) {
+        List<Integer> slots = new ArrayList<>();
+        index.forEachWithPrefix(prefix, limit, slots::add);
+        return slots;
+    }
+
+    private static String randomName(Random random) {
+        String alphabet = "abABäÄc抗";
+        StringBuilder name = new StringBuilder();
+        for (int i = random.nextInt(6); i >= 0; i--)
+            name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return name.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("An off-heap product store")
+class OffHeapProductStoreTest {
+
+    @Test
+    @DisplayName("reads back products across chunks")
+    void readsBackProductsAcrossChunks() {
+        OffHeapProductStore store = new OffHeapProductStore();
+        int count = 70_000;
+        for (int i = 0; i < count; i++)
+            store.add(new UUID(i, -i), i * 3, i % 7);
+
+        assertThat(store.size()).isEqualTo(count);
+        for (int slot = 0; slot < count; slot += 997) {
+            assertThat(store.id(slot)).isEqualTo(new UUID(slot, -slot));
+            assertThat(store.nameRef(slot)).isEqualTo(slot * 3);
+            assertThat(store.categoryOrdinal(slot)).isEqualTo(slot % 7);
+        }
+    }
+}
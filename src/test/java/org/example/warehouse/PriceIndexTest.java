@@ -0,0 +1,69 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A price index")
+class PriceIndexTest {
+
+    @Test
+    @DisplayName("lists prices in either order with ties in the order they were added")
+    void listsPricesWithTiesInTheOrderTheyWereAdded() {
+        PriceIndex index = new PriceIndex();
+        long[] prices = {500, 100, 500, 300, 100};
+        for (int slot = 0; slot < prices.length; slot++)
+            index.add(prices[slot], slot);
+
+        assertThat(inRange(index, Long.MIN_VALUE, Long.MAX_VALUE, false, 10)).containsExactly(1, 4, 3, 0, 2);
+        assertThat(inRange(index, Long.MIN_VALUE, Long.MAX_VALUE, true, 10)).containsExactly(0, 2, 3, 1, 4);
+        assertThat(inRange(index, 100, 300, true, 2)).containsExactly(3, 1);
+        assertThat(inRange(index, 200, 400, false, 10)).containsExactly(3);
+        assertThat(index.min()).isEqualTo(100);
+        assertThat(index.max()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("keeps the same order as sorting after many price changes")
+    void keepsTheSameOrderAsSortingAfterManyPriceChanges() {
+        PriceIndex index = new PriceIndex();
+        Random random = new Random(42);
+        long[] prices = new long[5_000];
+        for (int slot = 0; slot < prices.length; slot++) {
+            prices[slot] = random.nextInt(20);
+            index.add(prices[slot], slot);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            int slot = random.nextInt(prices.length);
+            long price = random.nextInt(20) * (random.nextBoolean() ? 1 : 1_000);
+            assertThat(index.remove(prices[slot], slot)).isTrue();
+            index.add(price, slot);
+            prices[slot] = price;
+        }
+        assertThat(index.remove(-1, 0)).isFalse();
+
+        List<Integer> ascending = new ArrayList<>();
+        for (int slot = 0; slot < prices.length; slot++)
+            ascending.add(slot);
+        ascending.sort(Comparator.comparingLong(slot -> prices[slot]));
+        assertThat(index.size()).isEqualTo(prices.length);
+        assertThat(inRange(index, Long.MIN_VALUE, Long.MAX_VALUE, false, Integer.MAX_VALUE)).isEqualTo(ascending);
+
+        List<Integer> descending = new ArrayList<>(ascending);
+        descending.sort(Comparator.comparingLong(slot -> -prices[slot]));
+        assertThat(inRange(index, 5, 5_000, true, Integer.MAX_VALUE))
+                .isEqualTo(descending.stream().filter(slot -> prices[slot] >= 5 && prices[slot] <= 5_000).toList());
+    }
+
+    private static List<Integer> inRange(PriceIndex index, long min, long max, boolean descending, int limit) {
+        List<Integer> slots = new ArrayList<>();
+        index.forEachInRange(min, max, descending, limit, slots::add);
+        return slots;
+    }
+}
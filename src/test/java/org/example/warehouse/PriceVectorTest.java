@@ -0,0 +1,46 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A price vector")
+class PriceVectorTest {
+
+    @Test
+    @DisplayName("reads back every appended price")
+    void readsBackEveryAppendedPrice() {
+        PriceVector prices = PriceVector.empty();
+        for (int i = 0; i < 40_000; i++)
+            prices = prices.append(i * 3L, i % 5);
+
+        assertThat(prices.size()).isEqualTo(40_000);
+        for (int i = 0; i < 40_000; i++) {
+            assertThat(prices.units(i)).isEqualTo(i * 3L);
+            assertThat(prices.scale(i)).isEqualTo(i % 5);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps older versions unchanged by later sets and appends")
+    void keepsOlderVersionsUnchanged() {
+        PriceVector prices = PriceVector.empty();
+        for (int i = 0; i < 1_100; i++)
+            prices = prices.append(i, 2);
+        PriceVector before = prices;
+
+        prices = prices.set(5, 500, 1).set(1_099, -1, 0);
+        for (int i = 0; i < 2_000; i++)
+            prices = prices.append(7, 2);
+
+        assertThat(before.size()).isEqualTo(1_100);
+        assertThat(before.units(5)).isEqualTo(5);
+        assertThat(before.scale(5)).isEqualTo(2);
+        assertThat(before.units(1_099)).isEqualTo(1_099);
+        assertThat(prices.units(5)).isEqualTo(500);
+        assertThat(prices.scale(5)).isEqualTo(1);
+        assertThat(prices.units(1_099)).isEqualTo(-1);
+        assertThat(prices.units(3_099)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A trigram index")
+class TrigramIndexTest {
+
+    @Test
+    @DisplayName("finds every product having the trigrams of a text")
+    void findsProductsHavingTheTrigrams() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("Goat Cheese Log", 0);
+        index.add("Cheddar", 1);
+        index.add("Cream cheese", 2);
+        index.add("Ch", 3);
+
+        assertThat(index.candidates("cheese")).containsExactly(0, 2);
+        assertThat(index.candidates("che")).containsExactly(0, 1, 2);
+        assertThat(index.candidates("cheddar cheese")).isEmpty();
+        assertThat(index.candidates("xyz")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("builds the same postings for a large batch as one product at a time")
+    void buildsTheSamePostingsInParallel() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++)
+            names.add("Product " + i % 1_000 + (i % 3 == 0 ? " cheese" : " bread"));
+        TrigramIndex sequential = new TrigramIndex();
+        for (int slot = 0; slot < names.size(); slot++)
+            sequential.add(names.get(slot), slot);
+        TrigramIndex parallel = new TrigramIndex();
+        parallel.add(names.get(0), 0);
+        parallel.addAll(1, names.size(), names::get);
+
+        for (String text : List.of("cheese", "bread", "uct 42", "t 999 b"))
+            assertThat(parallel.candidates(text)).containsExactly(sequential.candidates(text));
+        assertThat(parallel.candidates("cheese")).hasSize(16_667);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A UTF-8 name")
+class Utf8NameTest {
+
+    @Test
+    @DisplayName("decodes any bytes the same as a String does")
+    void decodesAnyBytesLikeAString() {
+        Random random = new Random(42);
+        byte[] interesting = {0x41, 0x2F, (byte) 0x80, (byte) 0x8F, (byte) 0x90, (byte) 0x9F, (byte) 0xA0, (byte) 0xBF,
+                (byte) 0xC0, (byte) 0xC1, (byte) 0xC2, (byte) 0xDF, (byte) 0xE0, (byte) 0xED, (byte) 0xEF,
+                (byte) 0xF0, (byte) 0xF4, (byte) 0xF5, (byte) 0xFF};
+        for (int run = 0; run < 20_000; run++) {
+            byte[] bytes = new byte[random.nextInt(8)];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = random.nextBoolean() ? interesting[random.nextInt(interesting.length)] : (byte) random.nextInt();
+            assertThat(Utf8Name.decode(bytes, 0, bytes.length).toString())
+                    .as("%s", HexFormat.of().formatHex(bytes))
+                    .isEqualTo(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+}
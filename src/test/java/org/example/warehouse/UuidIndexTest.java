@@ -0,0 +1,41 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A UUID index")
+class UuidIndexTest {
+
+    @Test
+    @DisplayName("finds the slot of every indexed id")
+    void findsSlotOfEveryIndexedId() {
+        UuidIndex index = new UuidIndex();
+        List<UUID> ids = new ArrayList<>();
+        for (int slot = 0; slot < 10_000; slot++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.put(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+        }
+
+        assertThat(index.size()).isEqualTo(10_000);
+        for (int slot = 0; slot < ids.size(); slot++)
+            assertThat(index.get(ids.get(slot).getMostSignificantBits(), ids.get(slot).getLeastSignificantBits())).isEqualTo(slot);
+    }
+
+    @Test
+    @DisplayName("returns -1 for ids that aren't indexed")
+    void returnsMinusOneForMissingIds() {
+        UuidIndex index = new UuidIndex();
+        index.put(1, 2, 0);
+
+        assertThat(index.get(2, 1)).isEqualTo(-1);
+        assertThat(index.get(0, 0)).isEqualTo(-1);
+        assertThat(index.get(1, 2)).isEqualTo(0);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.warehouse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A version 7 UUID")
+class UuidV7Test {
+
+    @Test
+    @DisplayName("has version 7 and the IETF variant")
+    void hasVersionAndVariant() {
+        UUID uuid = UuidV7.next();
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("starts with the current time")
+    void startsWithCurrentTime() {
+        long before = System.currentTimeMillis();
+        long millis = UuidV7.next().getMostSignificantBits() >>> 16;
+        assertThat(millis).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    @DisplayName("increases within a thread")
+    void increasesWithinThread() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.next();
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()))
+                    .isPositive();
+            previous = next;
+        }
+    }
+}